@@ -11,6 +11,9 @@ import com.patrigan.faction_craft.capabilities.factionentity.IFactionEntity;
 import com.patrigan.faction_craft.capabilities.factioninteraction.FactionInteraction;
 import com.patrigan.faction_craft.capabilities.factioninteraction.FactionInteractionStorage;
 import com.patrigan.faction_craft.capabilities.factioninteraction.IFactionInteraction;
+import com.patrigan.faction_craft.capabilities.patrolmanager.IPatrolManager;
+import com.patrigan.faction_craft.capabilities.patrolmanager.PatrolManager;
+import com.patrigan.faction_craft.capabilities.patrolmanager.PatrolManagerStorage;
 import com.patrigan.faction_craft.capabilities.patroller.IPatroller;
 import com.patrigan.faction_craft.capabilities.patroller.Patroller;
 import com.patrigan.faction_craft.capabilities.patroller.PatrollerStorage;
@@ -68,6 +71,7 @@ public class FactionCraft
 
     private void setup(final FMLCommonSetupEvent event){
         CapabilityManager.INSTANCE.register(IRaidManager.class, new RaidManagerStorage(), RaidManager::new);
+        CapabilityManager.INSTANCE.register(IPatrolManager.class, new PatrolManagerStorage(), PatrolManager::new);
         CapabilityManager.INSTANCE.register(IRaider.class, new RaiderStorage(), Raider::new);
         CapabilityManager.INSTANCE.register(IPatroller.class, new PatrollerStorage(), Patroller::new);
         CapabilityManager.INSTANCE.register(IFactionEntity.class, new FactionEntityStorage(), FactionEntity::new);
@@ -46,6 +46,7 @@ public class AttributeBoost extends Boost {
         return adjustment;
     }
 
+    @Override
     public int getStrengthAdjustment() {
         return strengthAdjustment;
     }
@@ -11,7 +11,6 @@ import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.util.ResourceLocation;
 import net.minecraftforge.common.IExtensibleEnum;
 
-import java.util.Map;
 import java.util.function.Supplier;
 
 public abstract class Boost extends RegistryDispatcher.Dispatchable<Boost.Serializer<?>> {
@@ -31,12 +30,23 @@ public abstract class Boost extends RegistryDispatcher.Dispatchable<Boost.Serial
 
     public abstract boolean canApply(LivingEntity livingEntity);
 
+    /**
+     * The strength this boost is expected to add, used to plan boosts before there is an entity to apply them to.
+     * Boosts whose strength depends on the entity, like faction mounts, report 0.
+     */
+    public int getStrengthAdjustment() {
+        return 0;
+    }
+
     public void updateAIOnJoin(MobEntity mobEntity){
         // noop
     }
 
     public CompoundNBT save(CompoundNBT compoundNBT) {
-        ResourceLocation resourceLocation = Boosts.BOOSTS.data.entrySet().stream().filter(entry -> entry.getValue().equals(this)).findFirst().map(Map.Entry::getKey).orElse(new ResourceLocation("empty"));
+        ResourceLocation resourceLocation = Boosts.BOOSTS.getKey(this);
+        if (resourceLocation == null) {
+            resourceLocation = new ResourceLocation("empty");
+        }
         compoundNBT.putString("name", resourceLocation.toString());
         return compoundNBT;
     }
@@ -0,0 +1,227 @@
+package com.patrigan.faction_craft.boost;
+
+import com.patrigan.faction_craft.capabilities.appliedboosts.IAppliedBoosts;
+import net.minecraft.util.ResourceLocation;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The boosts a whitelist/blacklist combination can draw from, compiled against a {@link LoadedBoosts} snapshot.
+ * Candidates are kept as a bitset over the boost indices and as cumulative weight arrays bucketed by {@link Boost.BoostType},
+ * so a draw that skips the types an entity can't take any more of needs no allocation.
+ */
+public class BoostCandidateTable {
+
+    private final LoadedBoosts loadedBoosts;
+    private final long[] candidates;
+    private final Boost.BoostType[] types;
+    private final Boost[] boosts;
+    private final int[] cumulativeWeights;
+    private final int[] bucketStart;
+    private final int[] bucketWeight;
+
+    private BoostCandidateTable(LoadedBoosts loadedBoosts, long[] candidates, Boost.BoostType[] types, Boost[] boosts, int[] cumulativeWeights, int[] bucketStart, int[] bucketWeight) {
+        this.loadedBoosts = loadedBoosts;
+        this.candidates = candidates;
+        this.types = types;
+        this.boosts = boosts;
+        this.cumulativeWeights = cumulativeWeights;
+        this.bucketStart = bucketStart;
+        this.bucketWeight = bucketWeight;
+    }
+
+    /**
+     * Candidates for a single entity, weighted by rarity.
+     * Without a whitelist every boost that isn't of rarity NONE is a candidate.
+     * Whitelisted boosts of rarity NONE stay candidates, with the lowest weight so they can still be drawn.
+     */
+    public static BoostCandidateTable forEntity(LoadedBoosts loadedBoosts, List<ResourceLocation> whitelist, List<ResourceLocation> blacklist, Map<ResourceLocation, Boost.Rarity> rarityOverrides) {
+        return compile(loadedBoosts, whitelist, blacklist, (resourceLocation, boost, whitelisted) -> {
+            Boost.Rarity rarity = rarityOverrides.getOrDefault(resourceLocation, boost.getRarity());
+            if (rarity.equals(Boost.Rarity.NONE)) {
+                return whitelisted ? Boost.Rarity.VERY_RARE.getWeight() : 0;
+            }
+            return rarity.getWeight();
+        });
+    }
+
+    /**
+     * Candidates applied to a whole group at once, all equally likely.
+     * Without a whitelist every boost that isn't of type SPECIAL is a candidate.
+     */
+    public static BoostCandidateTable forGroup(LoadedBoosts loadedBoosts, List<ResourceLocation> whitelist, List<ResourceLocation> blacklist) {
+        return compile(loadedBoosts, whitelist, blacklist, (resourceLocation, boost, whitelisted) -> whitelisted || boost.getType() != Boost.BoostType.SPECIAL ? 1 : 0);
+    }
+
+    private static BoostCandidateTable compile(LoadedBoosts loadedBoosts, List<ResourceLocation> whitelist, List<ResourceLocation> blacklist, WeightFunction weightFunction) {
+        int size = loadedBoosts.size();
+        Boost.BoostType[] types = Boost.BoostType.values();
+        if (types.length > Long.SIZE) {
+            throw new IllegalStateException("Boost candidate tables support at most " + Long.SIZE + " boost types");
+        }
+        int words = (size + 63) >>> 6;
+        long[] whitelisted = toBits(loadedBoosts, whitelist, words);
+        long[] blacklisted = toBits(loadedBoosts, blacklist, words);
+        boolean restricted = !whitelist.isEmpty();
+
+        long[] candidates = new long[words];
+        int[] weights = new int[size];
+        int[] bucketSize = new int[types.length];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            Boost boost = loadedBoosts.getBoost(i);
+            boolean isWhitelisted = isSet(whitelisted, i);
+            if (isSet(blacklisted, i) || (restricted && !isWhitelisted)) {
+                continue;
+            }
+            int weight = weightFunction.getWeight(loadedBoosts.getName(i), boost, isWhitelisted);
+            if (weight <= 0) {
+                continue;
+            }
+            candidates[i >>> 6] |= 1L << i;
+            weights[i] = weight;
+            bucketSize[boost.getType().ordinal()]++;
+            count++;
+        }
+
+        int[] bucketStart = new int[types.length + 1];
+        for (int t = 0; t < types.length; t++) {
+            bucketStart[t + 1] = bucketStart[t] + bucketSize[t];
+        }
+        Boost[] boosts = new Boost[count];
+        int[] cumulativeWeights = new int[count];
+        int[] bucketWeight = new int[types.length];
+        int[] position = Arrays.copyOf(bucketStart, types.length);
+        for (int i = 0; i < size; i++) {
+            if (!isSet(candidates, i)) {
+                continue;
+            }
+            Boost boost = loadedBoosts.getBoost(i);
+            int t = boost.getType().ordinal();
+            bucketWeight[t] += weights[i];
+            boosts[position[t]] = boost;
+            cumulativeWeights[position[t]] = bucketWeight[t];
+            position[t]++;
+        }
+        return new BoostCandidateTable(loadedBoosts, candidates, types, boosts, cumulativeWeights, bucketStart, bucketWeight);
+    }
+
+    private static long[] toBits(LoadedBoosts loadedBoosts, List<ResourceLocation> resourceLocations, int words) {
+        long[] bits = new long[words];
+        for (ResourceLocation resourceLocation : resourceLocations) {
+            int index = loadedBoosts.indexOf(resourceLocation);
+            if (index >= 0) {
+                bits[index >>> 6] |= 1L << index;
+            }
+        }
+        return bits;
+    }
+
+    private static boolean isSet(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * @return true if the boosts have been reloaded since this table was compiled
+     */
+    public boolean isStale() {
+        return !isCompiledFor(Boosts.getLoadedBoosts());
+    }
+
+    public boolean isCompiledFor(LoadedBoosts loadedBoosts) {
+        return this.loadedBoosts == loadedBoosts;
+    }
+
+    public boolean isEmpty() {
+        return boosts.length == 0;
+    }
+
+    public boolean contains(Boost boost) {
+        int index = loadedBoosts.indexOf(boost);
+        return index >= 0 && isSet(candidates, index);
+    }
+
+    /**
+     * @return a bitmask with a bit set for every boost type ordinal the entity can still take another boost of
+     */
+    public long getAvailableTypes(IAppliedBoosts appliedBoosts) {
+        long mask = 0L;
+        for (int t = 0; t < types.length; t++) {
+            if (bucketWeight[t] > 0 && appliedBoosts.countBoostsOfType(types[t]) < types[t].getMax()) {
+                mask |= 1L << t;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * @param typeCounts the number of boosts an entity has or is planned to get, indexed by boost type ordinal
+     * @return a bitmask with a bit set for every boost type ordinal the entity can still take another boost of
+     */
+    public long getAvailableTypes(int[] typeCounts) {
+        long mask = 0L;
+        for (int t = 0; t < types.length; t++) {
+            if (bucketWeight[t] > 0 && typeCounts[t] < types[t].getMax()) {
+                mask |= 1L << t;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Weighted draw over all candidates.
+     * @return the drawn boost, or null if there are no candidates
+     */
+    public Boost draw(Random random) {
+        return draw(random, -1L);
+    }
+
+    /**
+     * Weighted draw over the candidates whose type ordinal is set in the given mask.
+     * @return the drawn boost, or null if there are no candidates of those types
+     */
+    public Boost draw(Random random, long typeMask) {
+        int totalWeight = 0;
+        for (int t = 0; t < types.length; t++) {
+            if ((typeMask & (1L << t)) != 0) {
+                totalWeight += bucketWeight[t];
+            }
+        }
+        if (totalWeight <= 0) {
+            return null;
+        }
+        int picked = random.nextInt(totalWeight);
+        for (int t = 0; t < types.length; t++) {
+            if ((typeMask & (1L << t)) == 0) {
+                continue;
+            }
+            if (picked < bucketWeight[t]) {
+                return boosts[firstAbove(bucketStart[t], bucketStart[t + 1], picked)];
+            }
+            picked -= bucketWeight[t];
+        }
+        return null;
+    }
+
+    private int firstAbove(int from, int to, int value) {
+        int low = from;
+        int high = to - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulativeWeights[mid] > value) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    @FunctionalInterface
+    private interface WeightFunction {
+        int getWeight(ResourceLocation resourceLocation, Boost boost, boolean whitelisted);
+    }
+}
@@ -1,25 +1,22 @@
 package com.patrigan.faction_craft.boost;
 
 import com.patrigan.faction_craft.FactionCraft;
-import com.patrigan.faction_craft.capabilities.appliedboosts.AppliedBoostsHelper;
-import com.patrigan.faction_craft.capabilities.appliedboosts.IAppliedBoosts;
 import com.patrigan.faction_craft.data.util.CodecJsonDataManager;
 import com.patrigan.faction_craft.util.GeneralUtils;
-import net.minecraft.entity.LivingEntity;
-import com.mojang.datafixers.util.Pair;
 import net.minecraft.util.ResourceLocation;
-import net.minecraftforge.common.util.LazyOptional;
 import net.minecraftforge.event.AddReloadListenerEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Mod.EventBusSubscriber(modid = FactionCraft.MODID, bus = Mod.EventBusSubscriber.Bus.FORGE)
 public class Boosts {
 
-    public static final CodecJsonDataManager<Boost> BOOSTS = new CodecJsonDataManager<>("boost", Boost.CODEC, FactionCraft.LOGGER);
+    public static final CodecJsonDataManager<Boost> BOOSTS = new CodecJsonDataManager<>("boost", Boost.CODEC, FactionCraft.LOGGER)
+            .enableCompiledCache(FactionCraft.MODID, "boosts.nbt")
+            .addReloadCallback(Boosts::onBoostDataReloaded);
+    private static volatile LoadedBoosts loadedBoosts = LoadedBoosts.EMPTY;
 
 
     public static Boost getBoost(ResourceLocation factionResourceLocation){
@@ -34,50 +31,35 @@ public class Boosts {
         return BOOSTS.data.keySet();
     }
 
+    /**
+     * The snapshot of the loaded boosts, replaced as a whole on every reload.
+     * Code running off the main thread should take the snapshot on the main thread and only use that one.
+     */
+    public static LoadedBoosts getLoadedBoosts(){
+        return loadedBoosts;
+    }
+
+    /**
+     * Incremented on every reload, anything compiled against the boost indices is stale once this changes.
+     */
+    public static int getGeneration(){
+        return loadedBoosts.getGeneration();
+    }
+
     @SubscribeEvent
     public static void onAddReloadListeners(AddReloadListenerEvent event)
     {
         event.addListener(BOOSTS);
     }
 
-    public static Boost getRandomBoost(Random random) {
-        if(BOOSTS.data.size() == 0){
-            return null;
-        }
-        return GeneralUtils.getRandomItem(new ArrayList<>(BOOSTS.data.values()), random);
+    private static void onBoostDataReloaded(){
+        loadedBoosts = LoadedBoosts.of(loadedBoosts.getGeneration() + 1, BOOSTS.data);
     }
 
-    public static Boost getRandomBoost(Random random, List<Boost> whitelist, List<Boost> blacklist) {
-        if(BOOSTS.data.size() == 0){
-            return null;
-        }
-        List<Boost> filtered = BOOSTS.data.values().stream().filter(boost -> (whitelist.isEmpty() && boost.getType() != Boost.BoostType.SPECIAL) || whitelist.contains(boost)).filter(boost -> !blacklist.contains(boost)).collect(Collectors.toList());
-        return GeneralUtils.getRandomItem(filtered, random);
-    }
-
-    public static Boost getRandomBoostForEntity(Random random, LivingEntity livingEntity, List<Boost> whitelist, List<Boost> blacklist, Map<Boost, Boost.Rarity> rarityOverrides) {
+    public static Boost getRandomBoost(Random random) {
         if(BOOSTS.data.size() == 0){
             return null;
         }
-        LazyOptional<IAppliedBoosts> lazyCap = AppliedBoostsHelper.getAppliedBoostsCapabilityLazy(livingEntity);
-        if(!lazyCap.isPresent()){
-            return null;
-        }
-        IAppliedBoosts cap = lazyCap.resolve().get();
-        List<Pair<Boost, Integer>> filtered = BOOSTS.data.values().stream()
-                .filter(boost -> (whitelist.isEmpty() && !getRarity(boost, rarityOverrides).equals(Boost.Rarity.NONE)) || whitelist.contains(boost))
-                .filter(boost -> !blacklist.contains(boost))
-                .filter(boost -> cap.getBoostsOfType(boost.getType()).size() < boost.getType().getMax())
-                .map(boost -> new Pair<>(boost, getRarity(boost, rarityOverrides).getWeight()))
-                .collect(Collectors.toList());
-        return GeneralUtils.getRandomEntry(filtered, random);
-    }
-
-    private static Boost.Rarity getRarity(Boost boost, Map<Boost, Boost.Rarity> rarityOverrides){
-        if(rarityOverrides.containsKey(boost)){
-            return rarityOverrides.get(boost);
-        }else{
-            return boost.getRarity();
-        }
+        return GeneralUtils.getRandomItem(new ArrayList<>(BOOSTS.data.values()), random);
     }
 }
@@ -38,6 +38,7 @@ public class DaylightProtectionBoost extends Boost {
         return headpiece;
     }
 
+    @Override
     public int getStrengthAdjustment() {
         return strengthAdjustment;
     }
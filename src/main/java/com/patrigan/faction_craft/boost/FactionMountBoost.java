@@ -1,6 +1,5 @@
 package com.patrigan.faction_craft.boost;
 
-import com.mojang.datafixers.util.Pair;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 import com.patrigan.faction_craft.capabilities.factionentity.FactionEntityHelper;
@@ -8,17 +7,14 @@ import com.patrigan.faction_craft.capabilities.factionentity.IFactionEntity;
 import com.patrigan.faction_craft.capabilities.raider.IRaider;
 import com.patrigan.faction_craft.capabilities.raider.RaiderHelper;
 import com.patrigan.faction_craft.faction.entity.FactionEntityType;
-import com.patrigan.faction_craft.util.GeneralUtils;
+import com.patrigan.faction_craft.util.AliasSampler;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.LivingEntity;
 import net.minecraft.entity.MobEntity;
 import net.minecraft.entity.SpawnReason;
 import net.minecraft.util.ResourceLocation;
-import net.minecraft.util.math.vector.Vector3d;
 import net.minecraft.world.server.ServerWorld;
 
-import java.util.List;
-import java.util.stream.Collectors;
 
 import static com.patrigan.faction_craft.boost.BoostProviders.FACTION_MOUNT;
 import static com.patrigan.faction_craft.boost.BoostProviders.MOUNT;
@@ -65,15 +61,10 @@ public class FactionMountBoost extends Boost {
             if (cap.getFaction() == null) {
                 return 0;
             } else {
-                List<Pair<FactionEntityType, Integer>> weightMap = cap.getFaction().getWeightMapForRank(FactionEntityType.FactionRank.MOUNT).stream().filter(pair -> pair.getFirst().getEntityType().equals(entityTypeLocation)).collect(Collectors.toList());
-                IRaider raiderCap = RaiderHelper.getRaiderCapability(mob);
-                if (raiderCap != null && raiderCap.hasActiveRaid()) {
-                    weightMap = weightMap.stream().filter(pair -> pair.getFirst().getMinimumWave() <= raiderCap.getWave()).collect(Collectors.toList());
-                }
-                if(weightMap.isEmpty()){
+                FactionEntityType randomEntry = getMountSampler(mob, cap).sample(mob.getRandom());
+                if(randomEntry == null){
                     return 0;
                 }
-                FactionEntityType randomEntry = GeneralUtils.getRandomEntry(weightMap, mob.getRandom());
                 Entity entity = randomEntry.createEntity(level, cap.getFaction(), livingEntity.blockPosition(), false, SpawnReason.JOCKEY);
                 mob.startRiding(entity);
                 return randomEntry.getStrength();
@@ -94,13 +85,14 @@ public class FactionMountBoost extends Boost {
             if(cap.getFaction() == null){
                 return false;
             }
-            List<Pair<FactionEntityType, Integer>> weightMap = cap.getFaction().getWeightMapForRank(FactionEntityType.FactionRank.MOUNT).stream().filter(pair -> pair.getFirst().getEntityType().equals(entityTypeLocation)).collect(Collectors.toList());
-            IRaider raiderCap = RaiderHelper.getRaiderCapability(mob);
-            if (raiderCap != null && raiderCap.hasActiveRaid()) {
-                weightMap = weightMap.stream().filter(pair -> pair.getFirst().getMinimumWave() <= raiderCap.getWave()).collect(Collectors.toList());
-            }
-            return !weightMap.isEmpty();
+            return !getMountSampler(mob, cap).isEmpty();
         }
         return false;
     }
+
+    private AliasSampler<FactionEntityType> getMountSampler(MobEntity mob, IFactionEntity cap) {
+        IRaider raiderCap = RaiderHelper.getRaiderCapability(mob);
+        int wave = raiderCap != null && raiderCap.hasActiveRaid() ? raiderCap.getWave() : Integer.MAX_VALUE;
+        return cap.getFaction().getMountSampler(entityTypeLocation, wave);
+    }
 }
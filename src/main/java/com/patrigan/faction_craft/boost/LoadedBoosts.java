@@ -0,0 +1,91 @@
+package com.patrigan.faction_craft.boost;
+
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.minecraft.util.ResourceLocation;
+
+import java.util.Map;
+
+/**
+ * An immutable snapshot of the loaded boosts, giving each boost a dense index.
+ * A new snapshot is built on every reload, so anything compiled against one, like a {@link BoostCandidateTable},
+ * stays consistent even when the boosts are reloaded while a worker thread is still using it.
+ */
+public final class LoadedBoosts {
+    public static final LoadedBoosts EMPTY = new LoadedBoosts(0, new ResourceLocation[0], new Boost[0]);
+
+    private final int generation;
+    private final ResourceLocation[] names;
+    private final Boost[] boosts;
+    private final Object2IntMap<ResourceLocation> indexByName;
+    private final Reference2IntMap<Boost> indexByBoost;
+
+    private LoadedBoosts(int generation, ResourceLocation[] names, Boost[] boosts) {
+        this.generation = generation;
+        this.names = names;
+        this.boosts = boosts;
+        this.indexByName = new Object2IntOpenHashMap<>(names.length);
+        this.indexByName.defaultReturnValue(-1);
+        this.indexByBoost = new Reference2IntOpenHashMap<>(boosts.length);
+        this.indexByBoost.defaultReturnValue(-1);
+        for (int i = 0; i < boosts.length; i++) {
+            this.indexByName.put(names[i], i);
+            this.indexByBoost.put(boosts[i], i);
+        }
+    }
+
+    static LoadedBoosts of(int generation, Map<ResourceLocation, Boost> data) {
+        ResourceLocation[] names = new ResourceLocation[data.size()];
+        Boost[] boosts = new Boost[data.size()];
+        int i = 0;
+        for (Map.Entry<ResourceLocation, Boost> entry : data.entrySet()) {
+            names[i] = entry.getKey();
+            boosts[i] = entry.getValue();
+            i++;
+        }
+        return new LoadedBoosts(generation, names, boosts);
+    }
+
+    /**
+     * Incremented on every reload.
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
+    public int size() {
+        return boosts.length;
+    }
+
+    public Boost getBoost(int index) {
+        return boosts[index];
+    }
+
+    public ResourceLocation getName(int index) {
+        return names[index];
+    }
+
+    /**
+     * @return the boost with the given name in this snapshot, or {@link NoBoost#INSTANCE} if there is none
+     */
+    public Boost getBoost(ResourceLocation name) {
+        int index = indexByName.getInt(name);
+        return index < 0 ? NoBoost.INSTANCE : boosts[index];
+    }
+
+    /**
+     * @return the dense index of the boost in this snapshot, or -1 if it isn't part of it
+     */
+    public int indexOf(Boost boost) {
+        return indexByBoost.getInt(boost);
+    }
+
+    /**
+     * @return the dense index of the boost with the given name in this snapshot, or -1 if there is none
+     */
+    public int indexOf(ResourceLocation name) {
+        return indexByName.getInt(name);
+    }
+}
@@ -35,6 +35,7 @@ public class MountBoost extends Boost {
         return entityTypeLocation;
     }
 
+    @Override
     public int getStrengthAdjustment() {
         return strengthAdjustment;
     }
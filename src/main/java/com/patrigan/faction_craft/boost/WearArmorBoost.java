@@ -35,6 +35,7 @@ public class WearArmorBoost extends Boost {
     public List<ItemStack> getItemStacks() {
         return itemStacks;
     }
+    @Override
     public int getStrengthAdjustment() {
         return strengthAdjustment;
     }
@@ -37,6 +37,7 @@ public class WearHandsBoost extends Boost {
         return item;
     }
 
+    @Override
     public int getStrengthAdjustment() {
         return strengthAdjustment;
     }
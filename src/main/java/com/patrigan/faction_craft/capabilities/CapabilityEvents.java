@@ -3,6 +3,7 @@ package com.patrigan.faction_craft.capabilities;
 import com.patrigan.faction_craft.capabilities.appliedboosts.AppliedBoostsProvider;
 import com.patrigan.faction_craft.capabilities.factionentity.FactionEntityProvider;
 import com.patrigan.faction_craft.capabilities.factioninteraction.FactionInteractionProvider;
+import com.patrigan.faction_craft.capabilities.patrolmanager.PatrolManagerProvider;
 import com.patrigan.faction_craft.capabilities.patroller.PatrollerProvider;
 import com.patrigan.faction_craft.capabilities.raider.RaiderProvider;
 import com.patrigan.faction_craft.capabilities.raidmanager.RaidManagerProvider;
@@ -27,6 +28,7 @@ public class CapabilityEvents {
     public static void onAttachLevelCapabilities(AttachCapabilitiesEvent<World> event) {
         if(event.getObject() instanceof ServerWorld) {
             event.addCapability(new ResourceLocation(MODID, "raid_manager"), new RaidManagerProvider((ServerWorld) event.getObject()));
+            event.addCapability(new ResourceLocation(MODID, "patrol_manager"), new PatrolManagerProvider((ServerWorld) event.getObject()));
         }
     }
 
@@ -30,4 +30,15 @@ public class AppliedBoosts implements IAppliedBoosts {
     public List<Boost> getBoostsOfType(Boost.BoostType boostType) {
         return appliedBoosts.stream().filter(boost -> boost.getType().equals(boostType)).collect(Collectors.toList());
     }
+
+    @Override
+    public int countBoostsOfType(Boost.BoostType boostType) {
+        int count = 0;
+        for (Boost boost : appliedBoosts) {
+            if (boost.getType().equals(boostType)) {
+                count++;
+            }
+        }
+        return count;
+    }
 }
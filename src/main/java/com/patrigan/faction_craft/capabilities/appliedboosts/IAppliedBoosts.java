@@ -12,4 +12,6 @@ public interface IAppliedBoosts {
     void setAppliedBoosts(List<Boost> appliedBoosts);
 
     List<Boost> getBoostsOfType(Boost.BoostType boostType);
+
+    int countBoostsOfType(Boost.BoostType boostType);
 }
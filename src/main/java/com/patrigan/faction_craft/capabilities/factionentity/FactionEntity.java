@@ -1,6 +1,8 @@
 package com.patrigan.faction_craft.capabilities.factionentity;
 
 
+import com.patrigan.faction_craft.entity.FactionEntityIndex;
+import com.patrigan.faction_craft.entity.ai.goal.NearestFactionEnemyTargetGoal;
 import com.patrigan.faction_craft.faction.Faction;
 import com.patrigan.faction_craft.faction.Factions;
 import com.patrigan.faction_craft.faction.entity.FactionEntityType;
@@ -13,6 +15,9 @@ public class FactionEntity implements IFactionEntity {
     private MobEntity entity;
     private Faction faction = null;
     private FactionEntityType factionEntityType;
+    // Created on first use, the mob's attributes don't exist yet when the capability is attached
+    private NearestFactionEnemyTargetGoal<MobEntity> nearestFactionEnemyTargetGoal;
+    private boolean hasTargetGoal = false;
 
     public FactionEntity() {
         this.entity = null;
@@ -48,6 +53,15 @@ public class FactionEntity implements IFactionEntity {
     @Override
     public void setFaction(Faction faction) {
         this.faction = faction;
+        updateTargetGoal();
+        if(this.entity != null && this.entity.level != null && !this.entity.level.isClientSide()) {
+            FactionEntityIndex.get(this.entity.level).onFactionChanged(this.entity);
+        }
+    }
+
+    @Override
+    public int getFactionIndex() {
+        return faction == null ? -1 : faction.getIndex();
     }
 
     @Override
@@ -56,9 +70,11 @@ public class FactionEntity implements IFactionEntity {
             tag.putString("Faction", faction.getName().toString());
         }
         if(factionEntityType != null) {
-            CompoundNBT compoundNBT = new CompoundNBT();
-            compoundNBT = factionEntityType.save(compoundNBT);
-            tag.put("FactionEntityType", compoundNBT);
+            CompoundNBT keyNbt = new CompoundNBT();
+            keyNbt.putString("entityType", factionEntityType.getEntityType().toString());
+            keyNbt.putString("rank", factionEntityType.getRank().getName());
+            keyNbt.putInt("ordinal", faction == null ? -1 : faction.getEntityTypeOrdinal(factionEntityType));
+            tag.put("FactionEntityTypeKey", keyNbt);
         }
         return tag;
     }
@@ -71,9 +87,49 @@ public class FactionEntity implements IFactionEntity {
                 faction = Factions.getFaction(factionName);
             }
         }
-        if(tag.contains("FactionEntityType")) {
-            factionEntityType = FactionEntityType.load(tag.getCompound("FactionEntityType"));
+        updateTargetGoal();
+        if(tag.contains("FactionEntityTypeKey")) {
+            CompoundNBT keyNbt = tag.getCompound("FactionEntityTypeKey");
+            ResourceLocation entityType = new ResourceLocation(keyNbt.getString("entityType"));
+            FactionEntityType.FactionRank rank = FactionEntityType.FactionRank.byName(keyNbt.getString("rank"), FactionEntityType.FactionRank.SOLDIER);
+            factionEntityType = resolveFactionEntityType(entityType, rank, keyNbt.getInt("ordinal"));
+            if(factionEntityType == null) {
+                factionEntityType = FactionEntityType.missing(entityType, rank);
+            }
+        } else if(tag.contains("FactionEntityType")) {
+            // Mobs saved before entity types were stored by key carry a full copy
+            FactionEntityType loaded = FactionEntityType.load(tag.getCompound("FactionEntityType"));
+            FactionEntityType shared = faction == null ? null : faction.getMatchingEntityType(loaded);
+            factionEntityType = shared == null ? loaded : shared;
+        }
+    }
+
+    /**
+     * Only mobs of a faction with enemies look for faction enemies to attack, the goal is added once and removed when the faction goes.
+     */
+    @Override
+    public void updateTargetGoal() {
+        if(this.entity == null || this.entity.level == null || this.entity.level.isClientSide()) {
+            return;
+        }
+        boolean shouldHaveTargetGoal = this.faction != null && Factions.hasEnemies(this.faction);
+        if(shouldHaveTargetGoal && !this.hasTargetGoal) {
+            if(this.nearestFactionEnemyTargetGoal == null) {
+                this.nearestFactionEnemyTargetGoal = new NearestFactionEnemyTargetGoal<>(this.entity, 10, true, false);
+            }
+            this.entity.targetSelector.addGoal(2, this.nearestFactionEnemyTargetGoal);
+            this.hasTargetGoal = true;
+        } else if(!shouldHaveTargetGoal && this.hasTargetGoal) {
+            this.entity.targetSelector.removeGoal(this.nearestFactionEnemyTargetGoal);
+            this.hasTargetGoal = false;
+        }
+    }
+
+    private FactionEntityType resolveFactionEntityType(ResourceLocation entityType, FactionEntityType.FactionRank rank, int ordinal) {
+        if(faction == null) {
+            return null;
         }
+        return faction.getEntityType(entityType, rank, ordinal);
     }
 
 }
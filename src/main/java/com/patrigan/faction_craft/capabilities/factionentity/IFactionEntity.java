@@ -16,6 +16,16 @@ public interface IFactionEntity {
 
     void setFaction(Faction faction);
 
+    /**
+     * @return the index of the faction in the faction relation matrix, or -1 if the mob has no loaded faction
+     */
+    int getFactionIndex();
+
+    /**
+     * Adds or removes the faction enemy target goal, depending on whether the faction has enemies
+     */
+    void updateTargetGoal();
+
     CompoundNBT save(CompoundNBT tag);
 
     void load(CompoundNBT tag);
@@ -1,29 +1,23 @@
 package com.patrigan.faction_craft.capabilities.patroller;
 
-import net.minecraft.entity.MobEntity;
+import com.patrigan.faction_craft.patrol.Patrol;
 import net.minecraft.nbt.CompoundNBT;
-import net.minecraft.util.math.BlockPos;
+
+import javax.annotation.Nullable;
 
 public interface IPatroller {
 
-    void setPatrolTarget(BlockPos blockPos);
+    @Nullable
+    Patrol getPatrol();
 
-    BlockPos getPatrolTarget();
+    void joinPatrol(Patrol patrol);
 
-    boolean isPatrolLeader();
+    void leavePatrol();
 
-    void setPatrolLeader(boolean patrolLeader);
+    boolean isPatrolLeader();
 
     boolean isPatrolling();
 
-    void setPatrolling(boolean patrolling);
-
-    boolean hasPatrolTarget();
-
-    void findPatrolTarget();
-
-    boolean canJoinPatrol(MobEntity mob);
-
     CompoundNBT save(CompoundNBT tag);
 
     void load(CompoundNBT tag);
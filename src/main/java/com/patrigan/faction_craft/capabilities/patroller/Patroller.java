@@ -1,19 +1,19 @@
 package com.patrigan.faction_craft.capabilities.patroller;
 
 
+import com.patrigan.faction_craft.capabilities.patrolmanager.IPatrolManager;
+import com.patrigan.faction_craft.capabilities.patrolmanager.PatrolManagerHelper;
 import com.patrigan.faction_craft.entity.ai.goal.PatrolGoal;
+import com.patrigan.faction_craft.patrol.Patrol;
 import net.minecraft.entity.MobEntity;
 import net.minecraft.entity.ai.goal.Goal;
-import net.minecraft.entity.monster.PatrollerEntity;
 import net.minecraft.nbt.CompoundNBT;
-import net.minecraft.nbt.NBTUtil;
-import net.minecraft.util.math.BlockPos;
+
+import javax.annotation.Nullable;
 
 public class Patroller implements IPatroller {
 
-    private BlockPos patrolTarget = null;
-    private boolean patrolLeader = false;
-    private boolean patrolling = false;
+    private int patrolId = 0;
     private MobEntity entity;
     private Goal goal;
 
@@ -27,72 +27,66 @@ public class Patroller implements IPatroller {
         updatePatrolGoals();
     }
 
+    /**
+     * @return the patrol this mob belongs to, kept by the PatrolManager of its world, or null if it isn't patrolling
+     */
+    @Nullable
     @Override
-    public BlockPos getPatrolTarget() {
-        return patrolTarget;
-    }
-
-    @Override
-    public void setPatrolTarget(BlockPos patrolTarget) {
-        this.patrolTarget = patrolTarget;
-    }
-
-    @Override
-    public boolean isPatrolLeader() {
-        return patrolLeader;
-    }
-
-    @Override
-    public void setPatrolLeader(boolean patrolLeader) {
-        this.patrolLeader = patrolLeader;
+    public Patrol getPatrol() {
+        IPatrolManager patrolManager = getPatrolManager();
+        if (this.patrolId == 0 || patrolManager == null) {
+            return null;
+        }
+        return patrolManager.getPatrol(this.patrolId);
     }
 
     @Override
-    public boolean isPatrolling() {
-        return patrolling;
+    public void joinPatrol(Patrol patrol) {
+        this.leavePatrol();
+        patrol.addMember(this.entity.getUUID(), this.entity.blockPosition());
+        this.patrolId = patrol.getId();
+        updatePatrolGoals();
     }
 
     @Override
-    public void setPatrolling(boolean patrolling) {
-        this.patrolling = patrolling;
+    public void leavePatrol() {
+        Patrol patrol = getPatrol();
+        if (patrol != null) {
+            getPatrolManager().leavePatrol(patrol, this.entity.getUUID());
+        }
+        this.patrolId = 0;
         updatePatrolGoals();
     }
 
     @Override
-    public boolean hasPatrolTarget() {
-        return patrolTarget != null;
+    public boolean isPatrolLeader() {
+        Patrol patrol = getPatrol();
+        return patrol != null && patrol.isLeader(this.entity.getUUID());
     }
 
     @Override
-    public void findPatrolTarget() {
-        this.patrolTarget = this.entity.blockPosition().offset(-500 + this.entity.getRandom().nextInt(1000), 0, -500 + this.entity.getRandom().nextInt(1000));
-        this.patrolling = true;
+    public boolean isPatrolling() {
+        return patrolId != 0;
     }
 
-    @Override
-    public boolean canJoinPatrol(MobEntity mob) {
-        //TODO: Can only join when patrol is same faction.
-        return true;
+    @Nullable
+    private IPatrolManager getPatrolManager() {
+        if (this.entity == null || this.entity.level.isClientSide()) {
+            return null;
+        }
+        return PatrolManagerHelper.getPatrolManagerCapabilityLazy(this.entity.level).orElse(null);
     }
 
     @Override
     public CompoundNBT save(CompoundNBT compoundNbt) {
-        if (this.patrolTarget != null) {
-            compoundNbt.put("PatrolTarget", NBTUtil.writeBlockPos(this.patrolTarget));
-        }
-        compoundNbt.putBoolean("PatrolLeader", this.patrolLeader);
-        compoundNbt.putBoolean("Patrolling", this.patrolling);
+        compoundNbt.putInt("PatrolId", this.patrolId);
         return compoundNbt;
     }
 
     @Override
     public void load(CompoundNBT compoundNbt) {
-        if (compoundNbt.contains("PatrolTarget")) {
-            this.patrolTarget = NBTUtil.readBlockPos(compoundNbt.getCompound("PatrolTarget"));
-        }
-
-        this.patrolLeader = compoundNbt.getBoolean("PatrolLeader");
-        this.patrolling = compoundNbt.getBoolean("Patrolling");
+        // Patrollers saved before patrols were kept by the PatrolManager have no patrol to return to
+        this.patrolId = compoundNbt.getInt("PatrolId");
         updatePatrolGoals();
     }
 
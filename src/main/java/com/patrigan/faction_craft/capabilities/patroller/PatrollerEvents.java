@@ -5,7 +5,7 @@ import com.patrigan.faction_craft.capabilities.factionentity.IFactionEntity;
 import com.patrigan.faction_craft.capabilities.factioninteraction.FactionInteractionHelper;
 import com.patrigan.faction_craft.capabilities.factioninteraction.IFactionInteraction;
 import com.patrigan.faction_craft.capabilities.raider.RaiderHelper;
-import com.patrigan.faction_craft.config.FactionCraftConfig;
+import com.patrigan.faction_craft.config.ConfigSnapshot;
 import com.patrigan.faction_craft.effect.Effects;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.LivingEntity;
@@ -13,6 +13,7 @@ import net.minecraft.entity.MobEntity;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.potion.EffectInstance;
 import net.minecraft.util.math.MathHelper;
+import net.minecraftforge.event.entity.EntityLeaveWorldEvent;
 import net.minecraftforge.event.entity.living.LivingDeathEvent;
 import net.minecraftforge.event.entity.living.LivingHurtEvent;
 import net.minecraftforge.event.entity.living.LivingSpawnEvent;
@@ -50,11 +51,11 @@ public class PatrollerEvents {
                         --i;
                     }
 
-                    i = MathHelper.clamp(i, 0, FactionCraftConfig.RAID_MAX_FACTIONS.get()-1);
+                    i = MathHelper.clamp(i, 0, ConfigSnapshot.get().raidMaxFactions-1);
                     EffectInstance effectinstance = new EffectInstance(Effects.FACTION_BAD_OMEN, 120000, i, false, false, true);
-                    if (!FactionCraftConfig.DISABLE_FACTION_RAIDS.get()) {
+                    if (!ConfigSnapshot.get().disableFactionRaids) {
                         IFactionInteraction factionInteractionCapability = FactionInteractionHelper.getFactionInteractionCapability(playerEntity);
-                        if(factionInteractionCapability.getBadOmenFactions().size() < FactionCraftConfig.RAID_MAX_FACTIONS.get()) {
+                        if(factionInteractionCapability.getBadOmenFactions().size() < ConfigSnapshot.get().raidMaxFactions) {
                             IFactionEntity factionEntityCapability = FactionEntityHelper.getFactionEntityCapability((MobEntity) livingEntity);
                             if (factionEntityCapability.getFaction() != null){
                                 factionInteractionCapability.addBadOmenFaction(factionEntityCapability.getFaction());
@@ -65,6 +66,20 @@ public class PatrollerEvents {
                 }
             });
         }
+        if(!livingEntity.level.isClientSide() && livingEntity instanceof MobEntity) {
+            PatrollerHelper.getPatrollerCapabilityLazy((MobEntity) livingEntity).ifPresent(IPatroller::leavePatrol);
+        }
+    }
+
+    /**
+     * Mobs that despawn or are otherwise removed leave their patrol, mobs in unloading chunks stay in it
+     */
+    @SubscribeEvent
+    public static void onEntityLeaveWorld(EntityLeaveWorldEvent event){
+        Entity entity = event.getEntity();
+        if(!event.getWorld().isClientSide() && entity instanceof MobEntity && entity.removed) {
+            PatrollerHelper.getPatrollerCapabilityLazy((MobEntity) entity).ifPresent(IPatroller::leavePatrol);
+        }
     }
 
     @SubscribeEvent
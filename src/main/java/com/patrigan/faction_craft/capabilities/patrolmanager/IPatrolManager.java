@@ -0,0 +1,33 @@
+package com.patrigan.faction_craft.capabilities.patrolmanager;
+
+import com.patrigan.faction_craft.faction.Faction;
+import com.patrigan.faction_craft.patrol.Patrol;
+import net.minecraft.nbt.CompoundNBT;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.UUID;
+
+public interface IPatrolManager {
+
+    Map<Integer, Patrol> getPatrols();
+
+    @Nullable
+    Patrol getPatrol(int id);
+
+    Patrol createPatrol(Faction faction);
+
+    void removePatrol(Patrol patrol);
+
+    /**
+     * Removes the member from the patrol, and the patrol once it has no members left
+     */
+    void leavePatrol(Patrol patrol, UUID member);
+
+    void tick();
+
+    void load(CompoundNBT tag);
+
+    CompoundNBT save(CompoundNBT pCompound);
+
+}
@@ -0,0 +1,105 @@
+package com.patrigan.faction_craft.capabilities.patrolmanager;
+
+import com.google.common.collect.Maps;
+import com.patrigan.faction_craft.faction.Faction;
+import com.patrigan.faction_craft.patrol.Patrol;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.nbt.ListNBT;
+import net.minecraft.world.server.ServerWorld;
+
+import javax.annotation.Nullable;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+
+public class PatrolManager implements IPatrolManager {
+    private static final int PRUNE_INTERVAL = 100;
+
+    private final Map<Integer, Patrol> patrolMap = Maps.newHashMap();
+    private final ServerWorld level;
+    private int nextAvailableID = 1;
+
+    public PatrolManager() {
+        level = null;
+    }
+
+    public PatrolManager(ServerWorld level) {
+        this.level = level;
+    }
+
+    @Override
+    public Map<Integer, Patrol> getPatrols() {
+        return patrolMap;
+    }
+
+    @Nullable
+    @Override
+    public Patrol getPatrol(int id) {
+        return this.patrolMap.get(id);
+    }
+
+    @Override
+    public Patrol createPatrol(Faction faction) {
+        Patrol patrol = new Patrol(this.nextAvailableID++, faction);
+        this.patrolMap.put(patrol.getId(), patrol);
+        return patrol;
+    }
+
+    @Override
+    public void removePatrol(Patrol patrol) {
+        this.patrolMap.remove(patrol.getId());
+    }
+
+    @Override
+    public void leavePatrol(Patrol patrol, UUID member) {
+        patrol.removeMember(member);
+        if (patrol.isEmpty()) {
+            this.removePatrol(patrol);
+        }
+    }
+
+    /**
+     * Removes the members that left the world without the patrol noticing, and the patrols that have no members left
+     */
+    @Override
+    public void tick() {
+        if (this.level.getGameTime() % PRUNE_INTERVAL != 0) {
+            return;
+        }
+        Iterator<Patrol> iterator = this.patrolMap.values().iterator();
+        while (iterator.hasNext()) {
+            Patrol patrol = iterator.next();
+            patrol.pruneMembers(this.level);
+            if (patrol.isEmpty()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    @Override
+    public void load(CompoundNBT tag) {
+        this.nextAvailableID = Math.max(1, tag.getInt("NextAvailableID"));
+        ListNBT listnbt = tag.getList("Patrols", 10);
+
+        for(int i = 0; i < listnbt.size(); ++i) {
+            Patrol patrol = Patrol.load(listnbt.getCompound(i));
+            // Patrols of a faction that no longer exists are left out, their members stop patrolling
+            if (!patrol.isEmpty() && patrol.getFaction() != null) {
+                this.patrolMap.put(patrol.getId(), patrol);
+            }
+        }
+    }
+
+    @Override
+    public CompoundNBT save(CompoundNBT pCompound) {
+        pCompound.putInt("NextAvailableID", this.nextAvailableID);
+        ListNBT listnbt = new ListNBT();
+
+        for(Patrol patrol : this.patrolMap.values()) {
+            listnbt.add(patrol.save(new CompoundNBT()));
+        }
+
+        pCompound.put("Patrols", listnbt);
+        return pCompound;
+    }
+}
@@ -0,0 +1,27 @@
+package com.patrigan.faction_craft.capabilities.patrolmanager;
+
+import net.minecraft.world.World;
+import net.minecraftforge.common.util.LazyOptional;
+
+import static com.patrigan.faction_craft.capabilities.patrolmanager.PatrolManagerProvider.PATROL_MANAGER_CAPABILITY;
+
+public class PatrolManagerHelper {
+
+    public static LazyOptional<IPatrolManager> getPatrolManagerCapabilityLazy(World world)
+    {
+        if(PATROL_MANAGER_CAPABILITY == null) {
+            return LazyOptional.empty();
+        }
+        LazyOptional<IPatrolManager> lazyCap = world.getCapability(PATROL_MANAGER_CAPABILITY);
+        return lazyCap;
+    }
+
+    public static IPatrolManager getPatrolManagerCapability(World world)
+    {
+        LazyOptional<IPatrolManager> lazyCap = world.getCapability(PATROL_MANAGER_CAPABILITY);
+        if (lazyCap.isPresent()) {
+            return lazyCap.orElseThrow(() -> new IllegalStateException("Couldn't get the PatrolManager capability from the world!"));
+        }
+        return null;
+    }
+}
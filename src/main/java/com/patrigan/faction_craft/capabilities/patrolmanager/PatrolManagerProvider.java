@@ -0,0 +1,40 @@
+package com.patrigan.faction_craft.capabilities.patrolmanager;
+
+import net.minecraft.nbt.INBT;
+import net.minecraft.util.Direction;
+import net.minecraft.world.server.ServerWorld;
+import net.minecraftforge.common.capabilities.Capability;
+import net.minecraftforge.common.capabilities.CapabilityInject;
+import net.minecraftforge.common.capabilities.ICapabilitySerializable;
+import net.minecraftforge.common.util.LazyOptional;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+public class PatrolManagerProvider implements ICapabilitySerializable<INBT> {
+
+    @CapabilityInject(IPatrolManager.class)
+    public static final Capability<IPatrolManager> PATROL_MANAGER_CAPABILITY = null;
+
+    private LazyOptional<IPatrolManager> instance = LazyOptional.of(PATROL_MANAGER_CAPABILITY::getDefaultInstance);
+
+    public PatrolManagerProvider(ServerWorld world) {
+        this.instance = LazyOptional.of(() -> new PatrolManager(world));
+    }
+
+    @Nonnull
+    @Override
+    public <T> LazyOptional<T> getCapability(@Nonnull Capability<T> cap, @Nullable Direction side) {
+        return cap == PATROL_MANAGER_CAPABILITY ? instance.cast() : LazyOptional.empty();
+    }
+
+    @Override
+    public INBT serializeNBT() {
+        return PATROL_MANAGER_CAPABILITY.getStorage().writeNBT(PATROL_MANAGER_CAPABILITY, this.instance.orElseThrow(() -> new IllegalArgumentException("LazyOptional must not be empty!")), null);
+    }
+
+    @Override
+    public void deserializeNBT(INBT nbt) {
+        PATROL_MANAGER_CAPABILITY.getStorage().readNBT(PATROL_MANAGER_CAPABILITY, this.instance.orElseThrow(() -> new IllegalArgumentException("LazyOptional must not be empty!")), null, nbt);
+    }
+}
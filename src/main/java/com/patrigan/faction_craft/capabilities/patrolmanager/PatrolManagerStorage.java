@@ -0,0 +1,25 @@
+package com.patrigan.faction_craft.capabilities.patrolmanager;
+
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.nbt.INBT;
+import net.minecraft.util.Direction;
+import net.minecraftforge.common.capabilities.Capability;
+
+
+public class PatrolManagerStorage implements Capability.IStorage<IPatrolManager> {
+
+    public static final String PATROL_MANAGER_KEY = "PatrolManager";
+
+    @Override
+    public INBT writeNBT(Capability<IPatrolManager> capability, IPatrolManager instance, Direction side) {
+        CompoundNBT tag = new CompoundNBT();
+        tag = instance.save(tag);
+        return tag;
+    }
+
+    @Override
+    public void readNBT(Capability<IPatrolManager> capability, IPatrolManager instance, Direction side, INBT nbt) {
+        CompoundNBT tag = (CompoundNBT) nbt;
+        instance.load(tag);
+    }
+}
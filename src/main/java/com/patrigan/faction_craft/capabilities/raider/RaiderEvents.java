@@ -5,6 +5,7 @@ import net.minecraft.entity.EntityType;
 import net.minecraft.entity.LivingEntity;
 import net.minecraft.entity.MobEntity;
 import net.minecraftforge.event.entity.living.LivingDeathEvent;
+import net.minecraftforge.event.entity.living.LivingHealEvent;
 import net.minecraftforge.event.entity.living.LivingHurtEvent;
 import net.minecraftforge.event.entity.living.LivingSpawnEvent;
 import net.minecraftforge.eventbus.api.Event;
@@ -22,7 +23,19 @@ public class RaiderEvents {
         if(!livingEntity.level.isClientSide() && livingEntity instanceof MobEntity) {
             RaiderHelper.getRaiderCapabilityLazy((MobEntity) livingEntity).ifPresent(cap -> {
                 if (cap.hasActiveRaid()) {
-                    cap.getRaid().updateBossbar();
+                    cap.getRaid().markHealthChanged((MobEntity) livingEntity);
+                }
+            });
+        }
+    }
+
+    @SubscribeEvent
+    public static void onLivingHealEvent(LivingHealEvent event){
+        LivingEntity livingEntity = event.getEntityLiving();
+        if(!livingEntity.level.isClientSide() && livingEntity instanceof MobEntity) {
+            RaiderHelper.getRaiderCapabilityLazy((MobEntity) livingEntity).ifPresent(cap -> {
+                if (cap.hasActiveRaid()) {
+                    cap.getRaid().markHealthChanged((MobEntity) livingEntity);
                 }
             });
         }
@@ -2,6 +2,7 @@ package com.patrigan.faction_craft.capabilities.raidmanager;
 
 import com.patrigan.faction_craft.faction.Faction;
 import com.patrigan.faction_craft.raid.Raid;
+import com.patrigan.faction_craft.raid.SpawnPositionCache;
 import com.patrigan.faction_craft.raid.target.RaidTarget;
 import net.minecraft.entity.player.ServerPlayerEntity;
 import net.minecraft.nbt.CompoundNBT;
@@ -9,6 +10,7 @@ import net.minecraft.util.math.BlockPos;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public interface IRaidManager {
 
@@ -16,6 +18,15 @@ public interface IRaidManager {
 
     Map<Integer, Raid> getRaids();
 
+    Set<ServerPlayerEntity> getPlayersInRaid(Raid raid);
+
+    SpawnPositionCache getSpawnPositionCache();
+
+    /**
+     * Queues a task to run on the server thread at the start of the next raid manager tick, safe to call from any thread.
+     */
+    void executeOnMainThread(Runnable task);
+
     Raid getRaidAt(BlockPos blockPos);
 
     Raid getNearbyRaid(BlockPos blockPos, int distance);
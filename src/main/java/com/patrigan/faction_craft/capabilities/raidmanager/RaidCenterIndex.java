@@ -0,0 +1,105 @@
+package com.patrigan.faction_craft.capabilities.raidmanager;
+
+import com.patrigan.faction_craft.raid.Raid;
+import it.unimi.dsi.fastutil.ints.Int2LongMap;
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.MathHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Grid of raid centers, so looking up the raid at a position only has to check the raids in the surrounding cells.
+ * Raid centers can move, {@link #update(Raid)} has to be called after every raid tick to keep the grid in sync.
+ */
+class RaidCenterIndex {
+    // 8x8 chunks, the default raid radius of 96 blocks then covers at most 3x3 cells
+    private static final int CELL_SHIFT = 7;
+    // A player raid follows its player between raid ticks, so lookups also check a bit past the radius
+    private static final int MOVE_SLACK = 16;
+
+    private final Long2ObjectMap<List<Raid>> cells = new Long2ObjectOpenHashMap<>();
+    private final Int2LongMap raidCells = new Int2LongOpenHashMap();
+
+    public void add(Raid raid) {
+        long cell = getCell(raid.getCenter());
+        if (this.raidCells.containsKey(raid.getId())) {
+            long previousCell = this.raidCells.get(raid.getId());
+            if (previousCell != cell) {
+                this.removeFromCell(previousCell, raid);
+            }
+        }
+        this.raidCells.put(raid.getId(), cell);
+        List<Raid> raids = this.cells.get(cell);
+        if (raids == null) {
+            raids = new ArrayList<>(1);
+            this.cells.put(cell, raids);
+        }
+        if (!raids.contains(raid)) {
+            raids.add(raid);
+        }
+    }
+
+    public void remove(Raid raid) {
+        if (this.raidCells.containsKey(raid.getId())) {
+            this.removeFromCell(this.raidCells.remove(raid.getId()), raid);
+        }
+    }
+
+    /**
+     * Moves the raid to another cell if its center moved out of its current one
+     */
+    public void update(Raid raid) {
+        long cell = getCell(raid.getCenter());
+        if (!this.raidCells.containsKey(raid.getId()) || this.raidCells.get(raid.getId()) != cell) {
+            this.add(raid);
+        }
+    }
+
+    /**
+     * @return the nearest active raid with its center closer than the square root of distanceSqr, or null
+     */
+    public Raid getNearest(BlockPos blockPos, double distanceSqr) {
+        int radius = MathHelper.ceil(Math.sqrt(distanceSqr)) + MOVE_SLACK;
+        int minX = (blockPos.getX() - radius) >> CELL_SHIFT;
+        int maxX = (blockPos.getX() + radius) >> CELL_SHIFT;
+        int minZ = (blockPos.getZ() - radius) >> CELL_SHIFT;
+        int maxZ = (blockPos.getZ() + radius) >> CELL_SHIFT;
+        Raid raid = null;
+        double d0 = distanceSqr;
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                List<Raid> raids = this.cells.get(ChunkPos.asLong(x, z));
+                if (raids == null) {
+                    continue;
+                }
+                for (Raid raid1 : raids) {
+                    double d1 = raid1.getCenter().distSqr(blockPos);
+                    if (raid1.isActive() && d1 < d0) {
+                        raid = raid1;
+                        d0 = d1;
+                    }
+                }
+            }
+        }
+        return raid;
+    }
+
+    private void removeFromCell(long cell, Raid raid) {
+        List<Raid> raids = this.cells.get(cell);
+        if (raids != null) {
+            raids.remove(raid);
+            if (raids.isEmpty()) {
+                this.cells.remove(cell);
+            }
+        }
+    }
+
+    private static long getCell(BlockPos blockPos) {
+        return ChunkPos.asLong(blockPos.getX() >> CELL_SHIFT, blockPos.getZ() >> CELL_SHIFT);
+    }
+}
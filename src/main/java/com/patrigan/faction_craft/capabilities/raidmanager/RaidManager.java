@@ -2,9 +2,10 @@ package com.patrigan.faction_craft.capabilities.raidmanager;
 
 
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.patrigan.faction_craft.capabilities.factioninteraction.FactionInteractionHelper;
 import com.patrigan.faction_craft.capabilities.factioninteraction.IFactionInteraction;
-import com.patrigan.faction_craft.config.FactionCraftConfig;
+import com.patrigan.faction_craft.config.ConfigSnapshot;
 import com.patrigan.faction_craft.effect.Effects;
 import com.patrigan.faction_craft.faction.Faction;
 import com.patrigan.faction_craft.raid.target.RaidTarget;
@@ -17,14 +18,23 @@ import net.minecraft.stats.Stats;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.GameRules;
 import com.patrigan.faction_craft.raid.Raid;
+import com.patrigan.faction_craft.raid.SpawnPositionCache;
 import net.minecraft.world.server.ServerWorld;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
-import static com.patrigan.faction_craft.config.FactionCraftConfig.RAID_MAX_FACTIONS;
 
 public class RaidManager implements IRaidManager {
+    private static final int PLAYER_ASSIGNMENT_INTERVAL = 20;
+
     private final Map<Integer, Raid> raidMap = Maps.newHashMap();
+    private final RaidCenterIndex raidCenterIndex = new RaidCenterIndex();
+    private final Map<Integer, Set<ServerPlayerEntity>> raidPlayers = Maps.newHashMap();
+    private int raidPlayersTick = -PLAYER_ASSIGNMENT_INTERVAL;
+    private final SpawnPositionCache spawnPositionCache = new SpawnPositionCache();
+    // Results of work done on the worker threads, run at the start of the next tick
+    private final Queue<Runnable> mainThreadTasks = new ConcurrentLinkedQueue<>();
     private final ServerWorld level;
     private int nextAvailableID = 1;
     private int tick;
@@ -39,6 +49,10 @@ public class RaidManager implements IRaidManager {
 
     public void tick() {
         ++this.tick;
+        Runnable mainThreadTask;
+        while ((mainThreadTask = this.mainThreadTasks.poll()) != null) {
+            mainThreadTask.run();
+        }
         Iterator<Raid> iterator = this.raidMap.values().iterator();
 
         while(iterator.hasNext()) {
@@ -49,8 +63,10 @@ public class RaidManager implements IRaidManager {
 
             if (raid.isStopped()) {
                 iterator.remove();
+                this.raidCenterIndex.remove(raid);
             } else {
                 raid.tick();
+                this.raidCenterIndex.update(raid);
             }
         }
 
@@ -66,23 +82,47 @@ public class RaidManager implements IRaidManager {
         return ++this.nextAvailableID;
     }
 
-    public Raid getRaidAt(BlockPos blockPos) {
-        return this.getNearbyRaid(blockPos, 9216);
+    @Override
+    public void executeOnMainThread(Runnable task) {
+        this.mainThreadTasks.add(task);
     }
 
-    public Raid getNearbyRaid(BlockPos blockPos, int distance) {
-        Raid raid = null;
-        double d0 = distance;
-
-        for(Raid raid1 : this.raidMap.values()) {
-            double d1 = raid1.getCenter().distSqr(blockPos);
-            if (raid1.isActive() && d1 < d0) {
-                raid = raid1;
-                d0 = d1;
+    @Override
+    public SpawnPositionCache getSpawnPositionCache() {
+        return spawnPositionCache;
+    }
+
+    @Override
+    public Set<ServerPlayerEntity> getPlayersInRaid(Raid raid) {
+        if (this.tick - this.raidPlayersTick >= PLAYER_ASSIGNMENT_INTERVAL || this.tick < this.raidPlayersTick) {
+            this.assignPlayersToRaids();
+        }
+        return this.raidPlayers.getOrDefault(raid.getId(), Collections.emptySet());
+    }
+
+    /**
+     * Assigns every living player to the raid nearest to them, in one pass over the players.
+     */
+    private void assignPlayersToRaids() {
+        this.raidPlayersTick = this.tick;
+        this.raidPlayers.values().forEach(Set::clear);
+        for (ServerPlayerEntity player : this.level.players()) {
+            if (player.isAlive()) {
+                Raid raid = this.getRaidAt(player.blockPosition());
+                if (raid != null) {
+                    this.raidPlayers.computeIfAbsent(raid.getId(), id -> Sets.newHashSet()).add(player);
+                }
             }
         }
+        this.raidPlayers.values().removeIf(Set::isEmpty);
+    }
 
-        return raid;
+    public Raid getRaidAt(BlockPos blockPos) {
+        return this.getNearbyRaid(blockPos, 9216);
+    }
+
+    public Raid getNearbyRaid(BlockPos blockPos, int distance) {
+        return this.raidCenterIndex.getNearest(blockPos, distance);
     }
 
     @Override
@@ -92,7 +132,7 @@ public class RaidManager implements IRaidManager {
 
     @Override
     public Raid createRaid(List<Faction> factions, RaidTarget raidTarget) {
-        if (FactionCraftConfig.DISABLE_FACTION_RAIDS.get()) {
+        if (ConfigSnapshot.get().disableFactionRaids) {
             return null;
         } else {
             Raid raid = this.getRaidAt(raidTarget.getTargetBlockPos());
@@ -100,6 +140,9 @@ public class RaidManager implements IRaidManager {
                 raid = new Raid(this.getUniqueId(), factions, this.level, raidTarget);
                 if (!this.raidMap.containsKey(raid.getId())) {
                     this.raidMap.put(raid.getId(), raid);
+                    this.raidCenterIndex.add(raid);
+                    // A new raid takes players from the raids around it
+                    this.raidPlayersTick = this.tick - PLAYER_ASSIGNMENT_INTERVAL;
                 }
             }
             return raid;
@@ -108,7 +151,8 @@ public class RaidManager implements IRaidManager {
 
     @Override
     public Raid createBadOmenRaid(RaidTarget raidTarget, ServerPlayerEntity player) {
-        if (FactionCraftConfig.DISABLE_FACTION_RAIDS.get()) {
+        ConfigSnapshot config = ConfigSnapshot.get();
+        if (config.disableFactionRaids) {
             return null;
         } else {
             Raid raid = this.getRaidAt(raidTarget.getTargetBlockPos());
@@ -117,12 +161,12 @@ public class RaidManager implements IRaidManager {
             if(raid == null) {
                 raid = createRaid(new ArrayList<>(badOmenFactions), raidTarget);
                 clearBadOmen(cap, player, raid, true);
-            }else if (raid.getFactions().size() <= RAID_MAX_FACTIONS.get()) {
-                if(raid.getFactions().size() + badOmenFactions.size() <= RAID_MAX_FACTIONS.get()){
+            }else if (raid.getFactions().size() <= config.raidMaxFactions) {
+                if(raid.getFactions().size() + badOmenFactions.size() <= config.raidMaxFactions){
                     raid.addFactions(badOmenFactions);
                 }else{
                     for (Faction badOmenFaction : badOmenFactions) {
-                        if (raid.getFactions().size() < RAID_MAX_FACTIONS.get()){
+                        if (raid.getFactions().size() < config.raidMaxFactions){
                             raid.addFaction(badOmenFaction);
                         }
                     }
@@ -155,6 +199,7 @@ public class RaidManager implements IRaidManager {
             CompoundNBT compoundnbt = listnbt.getCompound(i);
             Raid raid = new Raid(this.level, compoundnbt);
             this.raidMap.put(raid.getId(), raid);
+            this.raidCenterIndex.add(raid);
         }
 
     }
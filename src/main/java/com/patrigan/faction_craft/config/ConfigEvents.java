@@ -0,0 +1,29 @@
+package com.patrigan.faction_craft.config;
+
+import com.patrigan.faction_craft.faction.Factions;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.config.ModConfig;
+
+import static com.patrigan.faction_craft.FactionCraft.MODID;
+
+@Mod.EventBusSubscriber(modid = MODID, bus = Mod.EventBusSubscriber.Bus.MOD)
+public class ConfigEvents {
+
+    @SubscribeEvent
+    public static void onConfigLoading(ModConfig.Loading event){
+        onConfigChanged(event.getConfig());
+    }
+
+    @SubscribeEvent
+    public static void onConfigReloading(ModConfig.Reloading event){
+        onConfigChanged(event.getConfig());
+    }
+
+    private static void onConfigChanged(ModConfig config){
+        if(config.getSpec() == FactionCraftConfig.COMMON_SPEC){
+            ConfigSnapshot.rebuild();
+            Factions.rebuildEnabledFactions();
+        }
+    }
+}
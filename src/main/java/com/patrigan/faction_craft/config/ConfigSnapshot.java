@@ -0,0 +1,122 @@
+package com.patrigan.faction_craft.config;
+
+import net.minecraft.util.ResourceLocation;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.patrigan.faction_craft.config.FactionCraftConfig.*;
+
+/**
+ * Immutable copy of the common config values, so tick code doesn't have to go through the ForgeConfigSpec values.
+ * Rebuilt by {@link ConfigEvents} whenever the config is loaded or reloaded.
+ */
+public class ConfigSnapshot {
+    private static volatile ConfigSnapshot current;
+
+    public final Set<ResourceLocation> disabledFactions;
+
+    public final boolean disableFactionRaids;
+    public final int raidMaxFactions;
+    public final int numberWavesEasy;
+    public final int numberWavesNormal;
+    public final int numberWavesHard;
+    public final double baseWaveMultiplier;
+    public final double multiplierIncreasePerWave;
+    public final double multiplierIncreasePerBadOmen;
+    public final double waveTargetStrengthSpread;
+    public final double targetStrengthDifficultyMultiplierEasy;
+    public final double targetStrengthDifficultyMultiplierNormal;
+    public final double targetStrengthDifficultyMultiplierHard;
+
+    public final float raidBossbarUpdateThreshold;
+    public final int raidMobsSpawnedPerTick;
+
+    public final double villageRaidTargetStrengthMultiplier;
+    public final double villageRaidAdditionalWaveChance;
+    public final int villageRaidVillagerWeight;
+    public final int villageRaidIronGolemWeight;
+
+    public final int playerRaidTargetBaseStrength;
+    public final double playerRaidTargetStrengthMultiplier;
+
+    public final int factionBattleRaidTargetBaseStrength;
+    public final double factionBattleRaidTargetStrengthMultiplier;
+
+    public final boolean disableFactionPatrols;
+    public final boolean disableVanillaPatrols;
+    public final long patrolDaytimeBeforeSpawning;
+    public final int patrolTickDelayBetweenSpawnAttempts;
+    public final int patrolVariableTickDelayBetweenSpawnAttempts;
+    public final double patrolSpawnChanceOnSpawnAttempt;
+
+    public final boolean disableFactionBattles;
+    public final long battleDaytimeBeforeSpawning;
+    public final int battleTickDelayBetweenSpawnAttempts;
+    public final int battleVariableTickDelayBetweenSpawnAttempts;
+    public final double battleSpawnChanceOnSpawnAttempt;
+
+    private ConfigSnapshot() {
+        Set<ResourceLocation> disabled = new HashSet<>();
+        DISABLED_FACTIONS.get().forEach(name -> disabled.add(new ResourceLocation(name)));
+        this.disabledFactions = Collections.unmodifiableSet(disabled);
+
+        this.disableFactionRaids = DISABLE_FACTION_RAIDS.get();
+        this.raidMaxFactions = RAID_MAX_FACTIONS.get();
+        this.numberWavesEasy = NUMBER_WAVES_EASY.get();
+        this.numberWavesNormal = NUMBER_WAVES_NORMAL.get();
+        this.numberWavesHard = NUMBER_WAVES_HARD.get();
+        this.baseWaveMultiplier = BASE_WAVE_MULTIPLIER.get();
+        this.multiplierIncreasePerWave = MULTIPLIER_INCREASE_PER_WAVE.get();
+        this.multiplierIncreasePerBadOmen = MULTIPLIER_INCREASE_PER_BAD_OMEN.get();
+        this.waveTargetStrengthSpread = WAVE_TARGET_STRENGTH_SPREAD.get();
+        this.targetStrengthDifficultyMultiplierEasy = TARGET_STRENGTH_DIFFICULTY_MULTIPLIER_EASY.get();
+        this.targetStrengthDifficultyMultiplierNormal = TARGET_STRENGTH_DIFFICULTY_MULTIPLIER_NORMAL.get();
+        this.targetStrengthDifficultyMultiplierHard = TARGET_STRENGTH_DIFFICULTY_MULTIPLIER_HARD.get();
+
+        this.raidBossbarUpdateThreshold = RAID_BOSSBAR_UPDATE_THRESHOLD.get().floatValue();
+        this.raidMobsSpawnedPerTick = RAID_MOBS_SPAWNED_PER_TICK.get();
+
+        this.villageRaidTargetStrengthMultiplier = VILLAGE_RAID_TARGET_STRENGTH_MULTIPLIER.get();
+        this.villageRaidAdditionalWaveChance = VILLAGE_RAID_ADDITIONAL_WAVE_CHANCE.get();
+        this.villageRaidVillagerWeight = VILLAGE_RAID_VILLAGER_WEIGHT.get();
+        this.villageRaidIronGolemWeight = VILLAGE_RAID_IRON_GOLEM_WEIGHT.get();
+
+        this.playerRaidTargetBaseStrength = PLAYER_RAID_TARGET_BASE_STRENGTH.get();
+        this.playerRaidTargetStrengthMultiplier = PLAYER_RAID_TARGET_STRENGTH_MULTIPLIER.get();
+
+        this.factionBattleRaidTargetBaseStrength = FACTION_BATTLE_RAID_TARGET_BASE_STRENGTH.get();
+        this.factionBattleRaidTargetStrengthMultiplier = FACTION_BATTLE_RAID_TARGET_STRENGTH_MULTIPLIER.get();
+
+        this.disableFactionPatrols = DISABLE_FACTION_PATROLS.get();
+        this.disableVanillaPatrols = DISABLE_VANILLA_PATROLS.get();
+        this.patrolDaytimeBeforeSpawning = PATROL_DAYTIME_BEFORE_SPAWNING.get();
+        this.patrolTickDelayBetweenSpawnAttempts = PATROL_TICK_DELAY_BETWEEN_SPAWN_ATTEMPTS.get();
+        this.patrolVariableTickDelayBetweenSpawnAttempts = PATROL_VARIABLE_TICK_DELAY_BETWEEN_SPAWN_ATTEMPTS.get();
+        this.patrolSpawnChanceOnSpawnAttempt = PATROL_SPAWN_CHANCE_ON_SPAWN_ATTEMPT.get();
+
+        this.disableFactionBattles = DISABLE_FACTION_BATTLES.get();
+        this.battleDaytimeBeforeSpawning = BATTLE_DAYTIME_BEFORE_SPAWNING.get();
+        this.battleTickDelayBetweenSpawnAttempts = BATTLE_TICK_DELAY_BETWEEN_SPAWN_ATTEMPTS.get();
+        this.battleVariableTickDelayBetweenSpawnAttempts = BATTLE_VARIABLE_TICK_DELAY_BETWEEN_SPAWN_ATTEMPTS.get();
+        this.battleSpawnChanceOnSpawnAttempt = BATTLE_SPAWN_CHANCE_ON_SPAWN_ATTEMPT.get();
+    }
+
+    /**
+     * @return the snapshot of the currently loaded config
+     */
+    public static ConfigSnapshot get() {
+        ConfigSnapshot snapshot = current;
+        if (snapshot == null) {
+            snapshot = rebuild();
+        }
+        return snapshot;
+    }
+
+    static ConfigSnapshot rebuild() {
+        ConfigSnapshot snapshot = new ConfigSnapshot();
+        current = snapshot;
+        return snapshot;
+    }
+}
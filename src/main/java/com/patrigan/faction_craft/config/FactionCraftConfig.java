@@ -25,6 +25,9 @@ public class FactionCraftConfig {
     public static ForgeConfigSpec.ConfigValue<Double> TARGET_STRENGTH_DIFFICULTY_MULTIPLIER_NORMAL;
     public static ForgeConfigSpec.ConfigValue<Double> TARGET_STRENGTH_DIFFICULTY_MULTIPLIER_HARD;
 
+    public static ForgeConfigSpec.ConfigValue<Double> RAID_BOSSBAR_UPDATE_THRESHOLD;
+    public static ForgeConfigSpec.ConfigValue<Integer> RAID_MOBS_SPAWNED_PER_TICK;
+
     public static ForgeConfigSpec.ConfigValue<Double> VILLAGE_RAID_TARGET_STRENGTH_MULTIPLIER;
     public static ForgeConfigSpec.ConfigValue<Double> VILLAGE_RAID_ADDITIONAL_WAVE_CHANCE;
     public static ForgeConfigSpec.ConfigValue<Integer> VILLAGE_RAID_VILLAGER_WEIGHT;
@@ -112,6 +115,17 @@ public class FactionCraftConfig {
 
             builder.pop();
 
+            builder.comment("Raid Performance").push("raid_performance");
+            RAID_BOSSBAR_UPDATE_THRESHOLD = builder
+                    .comment("The minimum change in the raid bar before it is sent to players again. \n" +
+                            "Empty and full bars are always sent. 0.0 sends every change. Default 0.01")
+                    .defineInRange("raidBossbarUpdateThreshold", 0.01, 0.0, 1.0);
+            RAID_MOBS_SPAWNED_PER_TICK = builder
+                    .comment("The max number of mobs a raid spawns per tick, larger waves are spread over multiple ticks. \n" +
+                            "Default 8")
+                    .defineInRange("raidMobsSpawnedPerTick", 8, 1, 9999);
+            builder.pop();
+
             builder.comment("Village Raid Target Calculations").push("village_raid_target_calculations");
             VILLAGE_RAID_TARGET_STRENGTH_MULTIPLIER = builder
                     .comment("Applied to the target strength of the village \n" +
@@ -28,13 +28,15 @@ package com.patrigan.faction_craft.data.util;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.JsonOps;
-import net.minecraft.client.resources.JsonReloadListener;
+import net.minecraft.client.resources.ReloadListener;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.entity.player.ServerPlayerEntity;
 import net.minecraft.profiler.IProfiler;
 import net.minecraft.resources.IResourceManager;
+import net.minecraft.util.JSONUtils;
 import net.minecraft.util.ResourceLocation;
 import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.event.entity.player.PlayerEvent;
@@ -45,12 +47,19 @@ import net.minecraftforge.fml.network.simple.SimpleChannel;
 import org.apache.logging.log4j.Logger;
 
 import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * <p>See drullkus's primer on what codecs are and how to assemble them:<br>
@@ -106,10 +115,12 @@ import java.util.function.Function;
  * name collisions, e.g. using "blockholdermod/block_holders" as the folder name would result in a json with the
  * id "bananas:banana_block" to be located at data/bananas/blockholdermod/block_holders/some_json.json</p>
  */
-public class CodecJsonDataManager<T> extends JsonReloadListener
+public class CodecJsonDataManager<T> extends ReloadListener<Map<ResourceLocation, T>>
 {
     // default gson if unspecified
     private static final Gson STANDARD_GSON = new Gson();
+    private static final String JSON_EXTENSION = ".json";
+    private static final int JSON_EXTENSION_LENGTH = JSON_EXTENSION.length();
 
     /** The codec we use to convert jsonelements to Ts **/
     private final Codec<T> codec;
@@ -119,9 +130,17 @@ public class CodecJsonDataManager<T> extends JsonReloadListener
 
     private final String folderName;
 
+    private final Gson gson;
+
     /** The raw data that we parsed from json last time resources were reloaded **/
     public Map<ResourceLocation, T> data = new HashMap<>();
+    /** Reverse lookup from the parsed objects to their ids, by identity **/
+    private Map<T, ResourceLocation> keys = new IdentityHashMap<>();
     private Optional<Runnable> syncOnReloadCallback = Optional.empty();
+    private final List<Runnable> reloadCallbacks = new ArrayList<>();
+    private CompiledDataCache<T> compiledDataCache = null;
+    /** Per id, the file hash and object decoded on the last reload. Only touched from prepare **/
+    private volatile Map<ResourceLocation, DecodedEntry<T>> decodedEntries = new HashMap<>();
 
     /**
      * Creates a data manager with a standard gson parser
@@ -148,8 +167,8 @@ public class CodecJsonDataManager<T> extends JsonReloadListener
      */
     public CodecJsonDataManager(String folderName, Codec<T> codec, Logger logger, Gson gson)
     {
-        super(gson, folderName);
-        this.folderName = folderName; // superclass has this but it's a private field
+        this.folderName = folderName;
+        this.gson = gson;
         this.codec = codec;
         this.logger = logger;
     }
@@ -165,12 +184,161 @@ public class CodecJsonDataManager<T> extends JsonReloadListener
         return this.data.get(id);
     }
 
+    /**
+     * Get the id of a data object that was loaded by this data manager
+     * @param value A java object that was deserialized by this data manager
+     * @return The id of the json the object was deserialized from, or null if it isn't part of the current data
+     */
+    @Nullable
+    public ResourceLocation getKey(T value)
+    {
+        return this.keys.get(value);
+    }
+
+    /** Off-thread processing, reads and decodes the jsons in parallel **/
     @Override
-    protected void apply(Map<ResourceLocation, JsonElement> jsons, IResourceManager resourceManager, IProfiler profiler)
+    protected Map<ResourceLocation, T> prepare(IResourceManager resourceManager, IProfiler profiler)
+    {
+        long startTime = System.nanoTime();
+        List<ResourceLocation> resourceLocations = new ArrayList<>(resourceManager.listResources(this.folderName, fileName -> fileName.endsWith(JSON_EXTENSION)));
+        Collections.sort(resourceLocations);
+        List<DataFile> files = DataLoaderPool.map(resourceLocations, resourceLocation -> this.readFile(resourceManager, resourceLocation));
+
+        String hash = null;
+        if (this.compiledDataCache != null)
+        {
+            hash = this.compiledDataCache.createKey(files.stream().filter(Objects::nonNull).collect(Collectors.toList()));
+            // the compiled cache only matters when there's nothing decoded in memory yet
+            Map<ResourceLocation, T> cached = this.decodedEntries.isEmpty() ? this.compiledDataCache.load(hash) : null;
+            if (cached != null)
+            {
+                Map<ResourceLocation, DecodedEntry<T>> entries = new HashMap<>();
+                for (DataFile file : files)
+                {
+                    if (file != null)
+                    {
+                        ResourceLocation key = this.getJsonIdentifier(file.getResourceLocation());
+                        if (cached.containsKey(key))
+                        {
+                            entries.put(key, new DecodedEntry<>(file.getContentHash(), cached.get(key)));
+                        }
+                    }
+                }
+                this.decodedEntries = entries;
+                this.logger.info("Data loader for {} loaded {} unchanged files from the compiled cache in {} ms", this.folderName, resourceLocations.size(), (System.nanoTime() - startTime) / 1000000L);
+                return cached;
+            }
+        }
+
+        // only files whose contents changed since the last reload are decoded again, unchanged objects keep their identity
+        Map<ResourceLocation, DecodedEntry<T>> previousEntries = this.decodedEntries;
+        List<T> decoded = DataLoaderPool.map(files, file -> {
+            if (file == null)
+            {
+                return null;
+            }
+            DecodedEntry<T> previous = previousEntries.get(this.getJsonIdentifier(file.getResourceLocation()));
+            return previous != null && previous.fileHash.equals(file.getContentHash()) ? previous.value : this.decode(file);
+        });
+
+        // collect the results in file order, so the data map is built the same way on every reload
+        Map<ResourceLocation, T> newMap = new HashMap<>();
+        Map<ResourceLocation, DecodedEntry<T>> entries = new HashMap<>();
+        int changed = 0;
+        for (int i = 0; i < resourceLocations.size(); i++)
+        {
+            T value = decoded.get(i);
+            if (value != null)
+            {
+                ResourceLocation key = this.getJsonIdentifier(resourceLocations.get(i));
+                DecodedEntry<T> previous = previousEntries.get(key);
+                if (previous == null || previous.value != value)
+                {
+                    changed++;
+                }
+                newMap.put(key, value);
+                entries.put(key, new DecodedEntry<>(files.get(i).getContentHash(), value));
+            }
+        }
+        this.decodedEntries = entries;
+        if (this.compiledDataCache != null && (changed > 0 || entries.size() != previousEntries.size()))
+        {
+            this.compiledDataCache.save(hash, newMap, (System.nanoTime() - startTime) / 1000000L);
+        }
+        this.logger.info("Data loader for {} read {} files and decoded {} changed files in {} ms", this.folderName, resourceLocations.size(), changed, (System.nanoTime() - startTime) / 1000000L);
+        return newMap;
+    }
+
+    private ResourceLocation getJsonIdentifier(ResourceLocation resourceLocation)
+    {
+        String filePath = resourceLocation.getPath();
+        return new ResourceLocation(resourceLocation.getNamespace(), filePath.substring(this.folderName.length() + 1, filePath.length() - JSON_EXTENSION_LENGTH));
+    }
+
+    /**
+     * Reads the top-most json for the given file
+     * @return the file, or null if it couldn't be read
+     */
+    @Nullable
+    private DataFile readFile(IResourceManager resourceManager, ResourceLocation resourceLocation)
+    {
+        try
+        {
+            return DataFile.read(resourceLocation, resourceManager.getResource(resourceLocation));
+        }
+        catch (IllegalArgumentException | IOException exception)
+        {
+            this.logger.error("Couldn't read data file {} from {}", this.getJsonIdentifier(resourceLocation), resourceLocation, exception);
+            return null;
+        }
+    }
+
+    /**
+     * Decodes a file that was read in prepare
+     * @return the decoded object, or null if the file is missing or couldn't be decoded
+     */
+    @Nullable
+    private T decode(@Nullable DataFile file)
+    {
+        if (file == null)
+        {
+            return null;
+        }
+        ResourceLocation key = this.getJsonIdentifier(file.getResourceLocation());
+        try (Reader reader = file.openReader())
+        {
+            JsonElement element = JSONUtils.fromJson(this.gson, reader, JsonElement.class);
+            if (element == null)
+            {
+                this.logger.error("Couldn't load data file {} from {} as it's null or empty", key, file.getResourceLocation());
+                return null;
+            }
+            // if we fail to parse json, log an error and continue
+            return this.codec.decode(JsonOps.INSTANCE, element)
+                    .get()
+                    .map(result -> result.getFirst(), partial -> {
+                        this.logger.error("Failed to parse data json for {} due to: {}", key.toString(), partial.message());
+                        return null;
+                    });
+        }
+        catch (IllegalArgumentException | IOException | JsonParseException exception)
+        {
+            this.logger.error("Couldn't parse data file {} from {}", key, file.getResourceLocation(), exception);
+            return null;
+        }
+    }
+
+    /** Main-thread processing, runs after prepare concludes **/
+    @Override
+    protected void apply(Map<ResourceLocation, T> newData, IResourceManager resourceManager, IProfiler profiler)
     {
         this.logger.info("Beginning loading of data for data loader: {}", this.folderName);
-        this.data = this.mapValues(jsons);
+        Map<T, ResourceLocation> newKeys = new IdentityHashMap<>(newData.size());
+        newData.forEach((key, value) -> newKeys.put(value, key));
+        this.keys = newKeys;
+        this.data = newData;
         this.logger.info("Data loader for {} loaded {} jsons", this.folderName, this.data.size());
+        this.reloadCallbacks.forEach(Runnable::run);
 
         // hacky server test until we can find a better way to do this
         boolean isServer = true;
@@ -193,23 +361,28 @@ public class CodecJsonDataManager<T> extends JsonReloadListener
         }
     }
 
-    private Map<ResourceLocation, T> mapValues(Map<ResourceLocation, JsonElement> inputs)
+    /**
+     * Registers a callback that runs on the main thread every time the data has been reloaded,
+     * after the new data has been assigned.
+     * @param callback The callback to run after a reload
+     * @return this manager object
+     */
+    public CodecJsonDataManager<T> addReloadCallback(final Runnable callback)
     {
-        Map<ResourceLocation, T> newMap = new HashMap<>();
-
-        for (Entry<ResourceLocation, JsonElement> entry : inputs.entrySet())
-        {
-            ResourceLocation key = entry.getKey();
-            JsonElement element = entry.getValue();
-            // if we fail to parse json, log an error and continue
-            // if we succeeded, add the resulting T to the map
-            this.codec.decode(JsonOps.INSTANCE, element)
-                    .get()
-                    .ifLeft(result -> newMap.put(key, result.getFirst()))
-                    .ifRight(partial -> this.logger.error("Failed to parse data json for {} due to: {}", key.toString(), partial.message()));
-        }
+        this.reloadCallbacks.add(callback);
+        return this;
+    }
 
-        return newMap;
+    /**
+     * Stores the decoded objects in a compiled cache, so later loads with exactly the same data files skip decoding.
+     * @param modId The mod the data belongs to, the cache is in its cache folder and is keyed by its version
+     * @param fileName The name of the cache file
+     * @return this manager object
+     */
+    public CodecJsonDataManager<T> enableCompiledCache(final String modId, final String fileName)
+    {
+        this.compiledDataCache = new CompiledDataCache<>(modId, CompiledDataCache.inCacheFolder(modId, fileName), this.codec, this.logger);
+        return this;
     }
 
     /**
@@ -247,4 +420,16 @@ public class CodecJsonDataManager<T> extends JsonReloadListener
     public boolean hasData(){
         return !data.isEmpty();
     }
-}
\ No newline at end of file
+
+    private static class DecodedEntry<T>
+    {
+        private final String fileHash;
+        private final T value;
+
+        private DecodedEntry(String fileHash, T value)
+        {
+            this.fileHash = fileHash;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.patrigan.faction_craft.data.util;
+
+import com.mojang.serialization.Codec;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.INBT;
+import net.minecraft.nbt.NBTDynamicOps;
+import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.fml.ModList;
+import net.minecraftforge.fml.loading.FMLPaths;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Compressed NBT copy of the final objects of a data manager, keyed by a hash over the mod version and every data file that went into them.
+ * When the key of the current data files matches, the objects are read back from the cache instead of parsing, decoding and merging the jsons again.
+ * The objects are still read back through their codec, but from typed NBT, one decode per final object instead of one per data file.
+ */
+public class CompiledDataCache<T>
+{
+    /** Bump when the layout of the cache file changes **/
+    private static final int FORMAT_VERSION = 2;
+
+    private final String modId;
+    private final Supplier<Path> fileSupplier;
+    private final Codec<T> codec;
+    private final Logger logger;
+
+    /**
+     * @param modId The mod the data belongs to, its version is part of the cache key so a mod update never reads an older cache
+     * @param fileSupplier Supplies the file the cache is stored in, resolved on every reload
+     * @param codec The codec used to write the final objects to NBT and read them back
+     * @param logger A logger that will log cache problems
+     */
+    public CompiledDataCache(String modId, Supplier<Path> fileSupplier, Codec<T> codec, Logger logger)
+    {
+        this.modId = modId;
+        this.fileSupplier = fileSupplier;
+        this.codec = codec;
+        this.logger = logger;
+    }
+
+    /**
+     * @return a supplier for a cache file in the shared cache folder of the game directory
+     */
+    public static Supplier<Path> inCacheFolder(String modId, String fileName)
+    {
+        return () -> FMLPaths.GAMEDIR.get().resolve("cache").resolve(modId).resolve(fileName);
+    }
+
+    /**
+     * @return a hex encoded hash over the given files, in the given order
+     */
+    public static String hash(List<DataFile> files)
+    {
+        return digest(digest -> files.forEach(file -> file.updateDigest(digest)));
+    }
+
+    /**
+     * @return the key the cache is stored under for the given files: a hash over the cache format, the mod version and the files
+     */
+    public String createKey(List<DataFile> files)
+    {
+        String modVersion = ModList.get().getModContainerById(this.modId).map(container -> container.getModInfo().getVersion().toString()).orElse("unknown");
+        return digest(digest -> {
+            digest.update(Integer.toString(FORMAT_VERSION).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(modVersion.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            files.forEach(file -> file.updateDigest(digest));
+        });
+    }
+
+    private static String digest(Consumer<MessageDigest> updater)
+    {
+        try
+        {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            updater.accept(digest);
+            StringBuilder builder = new StringBuilder();
+            for (byte b : digest.digest())
+            {
+                builder.append(String.format("%02x", b));
+            }
+            return builder.toString();
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        }
+    }
+
+    /**
+     * @return the cached objects if the cache was written for the given key, otherwise null
+     */
+    @Nullable
+    public Map<ResourceLocation, T> load(String key)
+    {
+        long startTime = System.nanoTime();
+        File file = this.fileSupplier.get().toFile();
+        if (!file.isFile())
+        {
+            return null;
+        }
+        try
+        {
+            CompoundNBT tag = CompressedStreamTools.readCompressed(file);
+            if (tag.getInt("Version") != FORMAT_VERSION || !key.equals(tag.getString("Hash")))
+            {
+                return null;
+            }
+            CompoundNBT dataTag = tag.getCompound("Data");
+            List<String> keys = new ArrayList<>(dataTag.getAllKeys());
+            // entries that can't be read come back as null
+            List<T> values = DataLoaderPool.map(keys, entryKey -> this.codec.parse(NBTDynamicOps.INSTANCE, dataTag.get(entryKey)).result().orElse(null));
+            Map<ResourceLocation, T> data = new HashMap<>();
+            for (int i = 0; i < keys.size(); i++)
+            {
+                if (values.get(i) == null)
+                {
+                    this.logger.warn("Compiled data cache {} has an entry {} that can't be read, ignoring the cache", file, keys.get(i));
+                    return null;
+                }
+                data.put(new ResourceLocation(keys.get(i)), values.get(i));
+            }
+            this.logger.info("Read {} entries from compiled data cache {} in {} ms, compiling them took {} ms", data.size(), file, (System.nanoTime() - startTime) / 1000000L, tag.getLong("CompileMillis"));
+            return data;
+        }
+        catch (IOException | RuntimeException exception)
+        {
+            this.logger.warn("Could not read compiled data cache {}", file, exception);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the objects to the cache, replacing whatever was cached before. Failures are logged and otherwise ignored.
+     * The cache is written to a temporary file first and moved in place, so a crash or another game writing the same cache never leaves a partial file behind.
+     * @param compileMillis How long it took to compile the objects from the data files, logged when the cache is read back
+     */
+    public void save(String key, Map<ResourceLocation, T> data, long compileMillis)
+    {
+        Path path = this.fileSupplier.get();
+        Path tempPath = null;
+        try
+        {
+            CompoundNBT dataTag = new CompoundNBT();
+            for (Map.Entry<ResourceLocation, T> entry : data.entrySet())
+            {
+                Optional<INBT> encoded = this.codec.encodeStart(NBTDynamicOps.INSTANCE, entry.getValue()).result();
+                if (!encoded.isPresent())
+                {
+                    this.logger.warn("Could not write {} to compiled data cache {}, skipping the cache", entry.getKey(), path);
+                    return;
+                }
+                dataTag.put(entry.getKey().toString(), encoded.get());
+            }
+            CompoundNBT tag = new CompoundNBT();
+            tag.putInt("Version", FORMAT_VERSION);
+            tag.putString("Hash", key);
+            tag.putLong("CompileMillis", compileMillis);
+            tag.put("Data", dataTag);
+            Files.createDirectories(path.getParent());
+            tempPath = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+            CompressedStreamTools.writeCompressed(tag, tempPath.toFile());
+            try
+            {
+                Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+            catch (AtomicMoveNotSupportedException exception)
+            {
+                Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+            tempPath = null;
+        }
+        catch (IOException | RuntimeException exception)
+        {
+            this.logger.warn("Could not write compiled data cache {}", path, exception);
+        }
+        finally
+        {
+            if (tempPath != null)
+            {
+                try
+                {
+                    Files.deleteIfExists(tempPath);
+                }
+                catch (IOException exception)
+                {
+                    this.logger.warn("Could not delete temporary compiled data cache {}", tempPath, exception);
+                }
+            }
+        }
+    }
+}
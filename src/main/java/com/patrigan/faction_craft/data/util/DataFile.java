@@ -0,0 +1,84 @@
+package com.patrigan.faction_craft.data.util;
+
+import net.minecraft.resources.IResource;
+import net.minecraft.util.ResourceLocation;
+import org.apache.commons.io.IOUtils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Collections;
+
+/**
+ * The raw contents of a single data file from a single data pack, read up front so the files can be hashed before they're decoded.
+ */
+public class DataFile
+{
+    private final ResourceLocation resourceLocation;
+    private final String sourceName;
+    private final byte[] bytes;
+    private String contentHash = null;
+
+    private DataFile(ResourceLocation resourceLocation, String sourceName, byte[] bytes)
+    {
+        this.resourceLocation = resourceLocation;
+        this.sourceName = sourceName;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Reads the whole resource and closes it
+     */
+    public static DataFile read(ResourceLocation resourceLocation, IResource resource) throws IOException
+    {
+        try (InputStream inputStream = resource.getInputStream())
+        {
+            return new DataFile(resourceLocation, resource.getSourceName(), IOUtils.toByteArray(inputStream));
+        }
+        finally
+        {
+            IOUtils.closeQuietly(resource);
+        }
+    }
+
+    public ResourceLocation getResourceLocation()
+    {
+        return this.resourceLocation;
+    }
+
+    public String getSourceName()
+    {
+        return this.sourceName;
+    }
+
+    public Reader openReader()
+    {
+        return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(this.bytes), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return a hex encoded hash over the location, data pack and contents of this file
+     */
+    public String getContentHash()
+    {
+        if (this.contentHash == null)
+        {
+            this.contentHash = CompiledDataCache.hash(Collections.singletonList(this));
+        }
+        return this.contentHash;
+    }
+
+    /**
+     * Adds the location, data pack and contents of this file to the digest
+     */
+    public void updateDigest(MessageDigest digest)
+    {
+        digest.update(this.resourceLocation.toString().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(this.sourceName.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(Integer.toString(this.bytes.length).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(this.bytes);
+    }
+}
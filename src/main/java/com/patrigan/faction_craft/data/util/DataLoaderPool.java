@@ -0,0 +1,41 @@
+package com.patrigan.faction_craft.data.util;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded pool shared by the data managers, used to read and decode data files in parallel during the off-thread part of a reload.
+ */
+public class DataLoaderPool
+{
+    private static final int PARALLELISM = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() - 1, 8));
+    private static ForkJoinPool pool;
+
+    private static synchronized ForkJoinPool getPool()
+    {
+        if (pool == null)
+        {
+            pool = new ForkJoinPool(PARALLELISM, forkJoinPool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                thread.setName("FactionCraft Data Loader-" + thread.getPoolIndex());
+                // worker threads would otherwise not see the mod classes through the context class loader
+                thread.setContextClassLoader(DataLoaderPool.class.getClassLoader());
+                return thread;
+            }, null, false);
+        }
+        return pool;
+    }
+
+    /**
+     * Applies the function to every input on the pool and blocks until all are done.
+     * The function should handle its own errors, as the first uncaught exception is rethrown here.
+     * @return the results, in the same order as the inputs
+     */
+    public static <In, Out> List<Out> map(final List<In> inputs, final Function<In, Out> function)
+    {
+        return getPool().submit(() -> inputs.parallelStream().map(function).collect(Collectors.toList())).join();
+    }
+}
@@ -26,7 +26,6 @@ SOFTWARE.
 
 package com.patrigan.faction_craft.data.util;
 
-import com.google.common.collect.Maps;
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParseException;
@@ -46,12 +45,11 @@ import net.minecraftforge.fml.LogicalSide;
 import net.minecraftforge.fml.LogicalSidedProvider;
 import net.minecraftforge.fml.network.PacketDistributor;
 import net.minecraftforge.fml.network.simple.SimpleChannel;
-import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.Logger;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.*;
-import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -80,6 +78,10 @@ public class MergeableCodecDataManager<RAW, FINE> extends ReloadListener<Map<Res
     private final Function<List<RAW>, FINE> merger;
     private final Gson gson;
     private Optional<Runnable> syncOnReloadCallback = Optional.empty();
+    private final List<Runnable> reloadCallbacks = new ArrayList<>();
+    private CompiledDataCache<FINE> compiledDataCache = null;
+    /** Per identifier, what was decoded on the last reload. Only touched from prepare **/
+    private volatile Map<ResourceLocation, DecodedEntry<RAW, FINE>> decodedEntries = new HashMap<>();
 
     /**
      * Initialize a data manager with the given folder name, codec, and merger
@@ -130,58 +132,155 @@ public class MergeableCodecDataManager<RAW, FINE> extends ReloadListener<Map<Res
     @Override
     protected Map<ResourceLocation, FINE> prepare(final IResourceManager resourceManager, final IProfiler profiler)
     {
-        final Map<ResourceLocation, List<RAW>> map = Maps.newHashMap();
+        final long startTime = System.nanoTime();
+        final List<ResourceLocation> resourceLocations = new ArrayList<>(resourceManager.listResources(this.folderName, MergeableCodecDataManager::isStringJsonFile));
+        Collections.sort(resourceLocations);
 
-        for (ResourceLocation resourceLocation : resourceManager.listResources(this.folderName, MergeableCodecDataManager::isStringJsonFile))
+        // files are read and decoded in parallel, the results come back in the same order as the files
+        final List<List<DataFile>> files = DataLoaderPool.map(resourceLocations, resourceLocation -> this.readFiles(resourceManager, resourceLocation));
+
+        String hash = null;
+        if (this.compiledDataCache != null)
         {
-            final String namespace = resourceLocation.getNamespace();
-            final String filePath = resourceLocation.getPath();
-            final String dataPath = filePath.substring(this.folderName.length() + 1, filePath.length() - JSON_EXTENSION_LENGTH);
-
-            // this is a json with identifier "somemodid:somedata"
-            final ResourceLocation jsonIdentifier = new ResourceLocation(namespace, dataPath);
-            // this is the list of all json objects with the given resource location (i.e. in multiple datapacks)
-            final List<RAW> unmergedRaws = new ArrayList<>();
-            // it's entirely possible that there are multiple jsons with this identifier,
-            // we can query the resource manager for these
-            try
+            final List<DataFile> allFiles = new ArrayList<>();
+            files.forEach(allFiles::addAll);
+            hash = this.compiledDataCache.createKey(allFiles);
+            // the compiled cache only matters when there's nothing decoded in memory yet
+            final Map<ResourceLocation, FINE> cached = this.decodedEntries.isEmpty() ? this.compiledDataCache.load(hash) : null;
+            if (cached != null)
             {
-                for (IResource resource : resourceManager.getResources(resourceLocation))
+                final Map<ResourceLocation, DecodedEntry<RAW, FINE>> entries = new HashMap<>();
+                for (int i = 0; i < resourceLocations.size(); i++)
                 {
-                    try // with resources
-                            (
-                                    final InputStream inputStream = resource.getInputStream();
-                                    final Reader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
-                            )
-                    {
-                        // read the json file and save the parsed object for later
-                        // this json element may return null
-                        final JsonElement jsonElement = JSONUtils.fromJson(this.gson, reader, JsonElement.class);
-                        this.codec.parse(JsonOps.INSTANCE, jsonElement)
-                                // resultOrPartial either returns a non-empty optional or calls the consumer given
-                                .resultOrPartial(MergeableCodecDataManager::throwJsonParseException)
-                                .ifPresent(unmergedRaws::add);
-                    }
-                    catch(RuntimeException | IOException exception)
+                    final ResourceLocation jsonIdentifier = this.getJsonIdentifier(resourceLocations.get(i));
+                    if (cached.containsKey(jsonIdentifier))
                     {
-                        this.logger.error("Data loader for {} could not read data {} from file {} in data pack {}", this.folderName, jsonIdentifier, resourceLocation, resource.getSourceName(), exception);
-                    }
-                    finally
-                    {
-                        IOUtils.closeQuietly(resource);
+                        entries.put(jsonIdentifier, new DecodedEntry<>(files.get(i), null, cached.get(jsonIdentifier)));
                     }
                 }
+                this.decodedEntries = entries;
+                this.logger.info("Data loader for {} loaded {} unchanged files from the compiled cache in {} ms", this.folderName, resourceLocations.size(), (System.nanoTime() - startTime) / 1000000L);
+                return cached;
             }
-            catch (IOException exception)
+        }
+
+        // only files whose contents changed since the last reload are decoded again, and only changed identifiers are merged again
+        final Map<ResourceLocation, DecodedEntry<RAW, FINE>> previousEntries = this.decodedEntries;
+        final List<Integer> indices = new ArrayList<>();
+        for (int i = 0; i < resourceLocations.size(); i++)
+        {
+            indices.add(i);
+        }
+        final List<DecodedEntry<RAW, FINE>> decoded = DataLoaderPool.map(indices, i -> this.decodeEntry(files.get(i), previousEntries.get(this.getJsonIdentifier(resourceLocations.get(i)))));
+
+        final Map<ResourceLocation, DecodedEntry<RAW, FINE>> entries = new HashMap<>();
+        final Map<ResourceLocation, FINE> result = new HashMap<>();
+        int changed = 0;
+        for (int i = 0; i < resourceLocations.size(); i++)
+        {
+            final ResourceLocation jsonIdentifier = this.getJsonIdentifier(resourceLocations.get(i));
+            final DecodedEntry<RAW, FINE> entry = decoded.get(i);
+            if (entry != previousEntries.get(jsonIdentifier))
             {
-                this.logger.error("Data loader for {} could not read data {} from file {}", this.folderName, jsonIdentifier, resourceLocation, exception);
+                changed++;
             }
+            entries.put(jsonIdentifier, entry);
+            result.put(jsonIdentifier, entry.fine);
+        }
+        this.decodedEntries = entries;
 
+        if (this.compiledDataCache != null && (changed > 0 || entries.size() != previousEntries.size()))
+        {
+            this.compiledDataCache.save(hash, result, (System.nanoTime() - startTime) / 1000000L);
+        }
+        this.logger.info("Data loader for {} read {} files and merged {} changed entries in {} ms", this.folderName, resourceLocations.size(), changed, (System.nanoTime() - startTime) / 1000000L);
+        return result;
+    }
 
-            map.put(jsonIdentifier, unmergedRaws);
+    /**
+     * Decodes and merges the files of a single identifier, reusing what was decoded on the last reload.
+     * @return the previous entry if none of the files changed, so its merged object keeps its identity
+     */
+    private DecodedEntry<RAW, FINE> decodeEntry(final List<DataFile> files, @Nullable final DecodedEntry<RAW, FINE> previous)
+    {
+        if (previous != null && previous.hasSameFiles(files))
+        {
+            return previous;
+        }
+        final List<RAW> raws = new ArrayList<>();
+        for (DataFile file : files)
+        {
+            final RAW previousRaw = previous == null ? null : previous.getRaw(file.getContentHash());
+            final RAW raw = previousRaw != null ? previousRaw : this.decodeRaw(file);
+            raws.add(raw);
         }
+        // this is the list of all json objects with the given resource location (i.e. in multiple datapacks)
+        final List<RAW> unmergedRaws = new ArrayList<>();
+        raws.forEach(raw -> {
+            if (raw != null)
+            {
+                unmergedRaws.add(raw);
+            }
+        });
+        return new DecodedEntry<>(files, raws, this.merger.apply(unmergedRaws));
+    }
+
+    /** Turns "folderName/somedata.json" in namespace "somemodid" into the identifier "somemodid:somedata" **/
+    private ResourceLocation getJsonIdentifier(final ResourceLocation resourceLocation)
+    {
+        final String filePath = resourceLocation.getPath();
+        final String dataPath = filePath.substring(this.folderName.length() + 1, filePath.length() - JSON_EXTENSION_LENGTH);
+        return new ResourceLocation(resourceLocation.getNamespace(), dataPath);
+    }
+
+    /** Reads every json with the given resource location (i.e. in multiple datapacks), in data pack order **/
+    private List<DataFile> readFiles(final IResourceManager resourceManager, final ResourceLocation resourceLocation)
+    {
+        final List<DataFile> files = new ArrayList<>();
+        // it's entirely possible that there are multiple jsons with this identifier,
+        // we can query the resource manager for these
+        try
+        {
+            for (IResource resource : resourceManager.getResources(resourceLocation))
+            {
+                try
+                {
+                    files.add(DataFile.read(resourceLocation, resource));
+                }
+                catch(RuntimeException | IOException exception)
+                {
+                    this.logger.error("Data loader for {} could not read data {} from file {} in data pack {}", this.folderName, this.getJsonIdentifier(resourceLocation), resourceLocation, resource.getSourceName(), exception);
+                }
+            }
+        }
+        catch (IOException exception)
+        {
+            this.logger.error("Data loader for {} could not read data {} from file {}", this.folderName, this.getJsonIdentifier(resourceLocation), resourceLocation, exception);
+        }
+        return files;
+    }
 
-        return MergeableCodecDataManager.mapValues(map, this.merger::apply);
+    /**
+     * Decodes a single json
+     * @return the decoded object, or null if it failed to parse
+     */
+    @Nullable
+    private RAW decodeRaw(final DataFile file)
+    {
+        try (final Reader reader = file.openReader())
+        {
+            // this json element may return null
+            final JsonElement jsonElement = JSONUtils.fromJson(this.gson, reader, JsonElement.class);
+            return this.codec.parse(JsonOps.INSTANCE, jsonElement)
+                    // resultOrPartial either returns a non-empty optional or calls the consumer given
+                    .resultOrPartial(MergeableCodecDataManager::throwJsonParseException)
+                    .orElse(null);
+        }
+        catch(RuntimeException | IOException exception)
+        {
+            this.logger.error("Data loader for {} could not read data {} from file {} in data pack {}", this.folderName, this.getJsonIdentifier(file.getResourceLocation()), file.getResourceLocation(), file.getSourceName(), exception);
+            return null;
+        }
     }
 
     static boolean isStringJsonFile(final String filename)
@@ -211,6 +310,7 @@ public class MergeableCodecDataManager<RAW, FINE> extends ReloadListener<Map<Res
         // now that we're on the main thread, we can finalize the data
         this.data = processedData;
         this.logger.info("Data loader for {} loaded {} finalized objects", this.folderName, this.data.size());
+        this.reloadCallbacks.forEach(Runnable::run);
 
         // hacky server test until we can find a better way to do this
         boolean isServer = true;
@@ -229,6 +329,31 @@ public class MergeableCodecDataManager<RAW, FINE> extends ReloadListener<Map<Res
         }
     }
 
+    /**
+     * Registers a callback that runs on the main thread every time new data has been applied,
+     * allowing caches derived from the data map to be rebuilt once per reload instead of per lookup.
+     * @param callback The callback to run after each reload
+     * @return this manager object
+     */
+    public MergeableCodecDataManager<RAW, FINE> addReloadCallback(final Runnable callback)
+    {
+        this.reloadCallbacks.add(callback);
+        return this;
+    }
+
+    /**
+     * Stores the merged objects in a compiled cache, so later loads with exactly the same data files skip parsing and merging.
+     * @param modId The mod the data belongs to, the cache is in its cache folder and is keyed by its version
+     * @param fileName The name of the cache file
+     * @param fineCodec A codec that can write the merged objects and read them back
+     * @return this manager object
+     */
+    public MergeableCodecDataManager<RAW, FINE> enableCompiledCache(final String modId, final String fileName, final Codec<FINE> fineCodec)
+    {
+        this.compiledDataCache = new CompiledDataCache<>(modId, CompiledDataCache.inCacheFolder(modId, fileName), fineCodec, this.logger);
+        return this;
+    }
+
     /**
      * This should be called at most once, in a mod constructor (FMLCommonSetupEvent *may* work as well)
      * Calling this method in static init may cause it to be called later than it should be.
@@ -260,4 +385,48 @@ public class MergeableCodecDataManager<RAW, FINE> extends ReloadListener<Map<Res
             }
         };
     }
-}
\ No newline at end of file
+
+    /** What was read, decoded and merged for a single identifier on the last reload **/
+    private static class DecodedEntry<RAW, FINE>
+    {
+        private final List<String> fileHashes = new ArrayList<>();
+        /** Decoded objects in the same order as the files, null where decoding failed. Null as a whole if the entry came from the compiled cache **/
+        @Nullable
+        private final List<RAW> raws;
+        private final FINE fine;
+
+        private DecodedEntry(final List<DataFile> files, @Nullable final List<RAW> raws, final FINE fine)
+        {
+            files.forEach(file -> this.fileHashes.add(file.getContentHash()));
+            this.raws = raws;
+            this.fine = fine;
+        }
+
+        private boolean hasSameFiles(final List<DataFile> files)
+        {
+            if (files.size() != this.fileHashes.size())
+            {
+                return false;
+            }
+            for (int i = 0; i < files.size(); i++)
+            {
+                if (!files.get(i).getContentHash().equals(this.fileHashes.get(i)))
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Nullable
+        private RAW getRaw(final String fileHash)
+        {
+            if (this.raws == null)
+            {
+                return null;
+            }
+            final int index = this.fileHashes.indexOf(fileHash);
+            return index < 0 ? null : this.raws.get(index);
+        }
+    }
+}
@@ -2,12 +2,13 @@ package com.patrigan.faction_craft.entity;
 
 import com.patrigan.faction_craft.capabilities.raider.IRaider;
 import com.patrigan.faction_craft.capabilities.raider.RaiderHelper;
-import com.patrigan.faction_craft.entity.ai.goal.NearestFactionEnemyTargetGoal;
-import net.minecraft.entity.Entity;
 import net.minecraft.entity.MobEntity;
 import net.minecraft.world.World;
+import net.minecraftforge.event.entity.EntityEvent;
 import net.minecraftforge.event.entity.EntityJoinWorldEvent;
+import net.minecraftforge.event.entity.EntityLeaveWorldEvent;
 import net.minecraftforge.event.entity.living.LivingConversionEvent;
+import net.minecraftforge.event.world.WorldEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
 
@@ -29,10 +30,29 @@ public class EntityEvents {
 
     @SubscribeEvent
     public static void onEntityJoinWorld(EntityJoinWorldEvent event){
-        Entity entity = event.getEntity();
-        if(entity instanceof MobEntity){
-            MobEntity mob = (MobEntity) entity;
-            mob.targetSelector.addGoal(2, new NearestFactionEnemyTargetGoal<>(mob, 10, true, false));
+        if(event.getEntity() instanceof MobEntity && !event.getWorld().isClientSide()){
+            FactionEntityIndex.get(event.getWorld()).update((MobEntity) event.getEntity());
+        }
+    }
+
+    @SubscribeEvent
+    public static void onEntityLeaveWorld(EntityLeaveWorldEvent event){
+        if(event.getEntity() instanceof MobEntity && !event.getWorld().isClientSide()){
+            FactionEntityIndex.get(event.getWorld()).remove((MobEntity) event.getEntity());
+        }
+    }
+
+    @SubscribeEvent
+    public static void onEnteringChunk(EntityEvent.EnteringChunk event){
+        if(event.getEntity() instanceof MobEntity && !event.getEntity().level.isClientSide()){
+            FactionEntityIndex.get(event.getEntity().level).update((MobEntity) event.getEntity());
+        }
+    }
+
+    @SubscribeEvent
+    public static void onWorldUnload(WorldEvent.Unload event){
+        if(event.getWorld() instanceof World){
+            FactionEntityIndex.remove((World) event.getWorld());
         }
     }
 }
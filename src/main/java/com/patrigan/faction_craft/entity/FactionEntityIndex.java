@@ -0,0 +1,225 @@
+package com.patrigan.faction_craft.entity;
+
+import com.patrigan.faction_craft.capabilities.factionentity.FactionEntityHelper;
+import com.patrigan.faction_craft.capabilities.factionentity.IFactionEntity;
+import com.patrigan.faction_craft.faction.Faction;
+import com.patrigan.faction_craft.faction.Factions;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.entity.MobEntity;
+import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.SectionPos;
+import net.minecraft.world.World;
+
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * The faction mobs of a world, bucketed by faction index and chunk section.
+ * Kept up to date from the join, leave and chunk section change events in {@link EntityEvents}, so searches for faction mobs
+ * only look at the sections in range for the factions they're after, without a capability lookup per candidate.
+ * Only used from the server thread.
+ */
+public class FactionEntityIndex {
+    private static final Map<World, FactionEntityIndex> INDICES = new WeakHashMap<>();
+
+    private final Map<MobEntity, Entry> entries = new IdentityHashMap<>();
+    private final Int2ObjectMap<Long2ObjectMap<List<MobEntity>>> buckets = new Int2ObjectOpenHashMap<>();
+
+    public static FactionEntityIndex get(World level) {
+        return INDICES.computeIfAbsent(level, key -> new FactionEntityIndex());
+    }
+
+    static void remove(World level) {
+        INDICES.remove(level);
+    }
+
+    /**
+     * Faction indices change when the factions are reloaded, every index is rebuilt.
+     * Factions can also gain or lose enemies, so every indexed mob checks its target goal again.
+     */
+    public static void onFactionsReloaded() {
+        INDICES.values().forEach(FactionEntityIndex::rebuild);
+        INDICES.values().forEach(index -> index.entries.keySet().forEach(mobEntity ->
+                FactionEntityHelper.getFactionEntityCapabilityLazy(mobEntity).ifPresent(IFactionEntity::updateTargetGoal)));
+    }
+
+    /**
+     * Adds the mob, or moves it to its current faction and section
+     */
+    public void update(MobEntity mobEntity) {
+        IFactionEntity cap = FactionEntityHelper.getFactionEntityCapabilityLazy(mobEntity).orElse(null);
+        Faction faction = cap == null ? null : cap.getFaction();
+        if (faction == null || !mobEntity.isAlive()) {
+            remove(mobEntity);
+            return;
+        }
+        Entry entry = this.entries.get(mobEntity);
+        if (entry == null) {
+            entry = new Entry(faction);
+            this.entries.put(mobEntity, entry);
+        } else if (entry.faction == faction && entry.factionIndex == faction.getIndex() && entry.section == getSection(mobEntity)) {
+            return;
+        } else {
+            unbucket(mobEntity, entry);
+            entry.faction = faction;
+        }
+        bucket(mobEntity, entry);
+    }
+
+    /**
+     * Moves the mob to its new faction if it is in the index
+     */
+    public void onFactionChanged(MobEntity mobEntity) {
+        if (this.entries.containsKey(mobEntity)) {
+            update(mobEntity);
+        }
+    }
+
+    public void remove(MobEntity mobEntity) {
+        Entry entry = this.entries.remove(mobEntity);
+        if (entry != null) {
+            unbucket(mobEntity, entry);
+        }
+    }
+
+    /**
+     * @return the mob of a faction that is an enemy of the given faction closest to the given position, within the area and matching the condition,
+     * or null if there is none
+     */
+    @Nullable
+    public MobEntity getNearestEnemy(Faction faction, AxisAlignedBB area, double x, double y, double z, Predicate<MobEntity> condition) {
+        MobEntity nearest = null;
+        double nearestDistance = Double.MAX_VALUE;
+        for (Int2ObjectMap.Entry<Long2ObjectMap<List<MobEntity>>> factionBuckets : this.buckets.int2ObjectEntrySet()) {
+            if (!Factions.isEnemy(faction.getIndex(), factionBuckets.getIntKey())) {
+                continue;
+            }
+            for (MobEntity mobEntity : getInArea(factionBuckets.getValue(), area)) {
+                double distance = mobEntity.distanceToSqr(x, y, z);
+                if (distance < nearestDistance && condition.test(mobEntity)) {
+                    nearest = mobEntity;
+                    nearestDistance = distance;
+                }
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * @return the mobs of the given faction within the area and matching the condition
+     */
+    public List<MobEntity> getFactionMobs(Faction faction, AxisAlignedBB area, Predicate<MobEntity> condition) {
+        Long2ObjectMap<List<MobEntity>> factionBuckets = this.buckets.get(faction.getIndex());
+        if (factionBuckets == null) {
+            return Collections.emptyList();
+        }
+        List<MobEntity> mobs = getInArea(factionBuckets, area);
+        mobs.removeIf(condition.negate());
+        return mobs;
+    }
+
+    private static List<MobEntity> getInArea(Long2ObjectMap<List<MobEntity>> factionBuckets, AxisAlignedBB area) {
+        int minX = MathHelper.floor(area.minX) >> 4;
+        int maxX = MathHelper.floor(area.maxX) >> 4;
+        int minY = MathHelper.clamp(MathHelper.floor(area.minY) >> 4, 0, 15);
+        int maxY = MathHelper.clamp(MathHelper.floor(area.maxY) >> 4, 0, 15);
+        int minZ = MathHelper.floor(area.minZ) >> 4;
+        int maxZ = MathHelper.floor(area.maxZ) >> 4;
+        List<MobEntity> mobs = new ArrayList<>();
+        long sectionsInArea = (long) (maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1);
+        if (factionBuckets.size() < sectionsInArea) {
+            // Fewer occupied sections than sections in the area, check the occupied ones instead
+            for (Long2ObjectMap.Entry<List<MobEntity>> bucket : factionBuckets.long2ObjectEntrySet()) {
+                long section = bucket.getLongKey();
+                int sectionX = SectionPos.x(section);
+                int sectionY = SectionPos.y(section);
+                int sectionZ = SectionPos.z(section);
+                if (sectionX >= minX && sectionX <= maxX && sectionY >= minY && sectionY <= maxY && sectionZ >= minZ && sectionZ <= maxZ) {
+                    addInArea(bucket.getValue(), area, mobs);
+                }
+            }
+        } else {
+            for (int sectionX = minX; sectionX <= maxX; sectionX++) {
+                for (int sectionY = minY; sectionY <= maxY; sectionY++) {
+                    for (int sectionZ = minZ; sectionZ <= maxZ; sectionZ++) {
+                        List<MobEntity> bucket = factionBuckets.get(SectionPos.asLong(sectionX, sectionY, sectionZ));
+                        if (bucket != null) {
+                            addInArea(bucket, area, mobs);
+                        }
+                    }
+                }
+            }
+        }
+        return mobs;
+    }
+
+    private static void addInArea(List<MobEntity> bucket, AxisAlignedBB area, List<MobEntity> mobs) {
+        for (MobEntity mobEntity : bucket) {
+            if (mobEntity.isAlive() && mobEntity.getBoundingBox().intersects(area)) {
+                mobs.add(mobEntity);
+            }
+        }
+    }
+
+    private void rebuild() {
+        this.buckets.clear();
+        this.entries.forEach((mobEntity, entry) -> bucket(mobEntity, entry));
+    }
+
+    private void bucket(MobEntity mobEntity, Entry entry) {
+        entry.factionIndex = entry.faction.getIndex();
+        entry.section = getSection(mobEntity);
+        if (entry.factionIndex < 0) {
+            // The faction is no longer loaded
+            return;
+        }
+        Long2ObjectMap<List<MobEntity>> factionBuckets = this.buckets.get(entry.factionIndex);
+        if (factionBuckets == null) {
+            factionBuckets = new Long2ObjectOpenHashMap<>();
+            this.buckets.put(entry.factionIndex, factionBuckets);
+        }
+        List<MobEntity> bucket = factionBuckets.get(entry.section);
+        if (bucket == null) {
+            bucket = new ArrayList<>();
+            factionBuckets.put(entry.section, bucket);
+        }
+        bucket.add(mobEntity);
+    }
+
+    private void unbucket(MobEntity mobEntity, Entry entry) {
+        Long2ObjectMap<List<MobEntity>> factionBuckets = this.buckets.get(entry.factionIndex);
+        if (factionBuckets == null) {
+            return;
+        }
+        List<MobEntity> bucket = factionBuckets.get(entry.section);
+        if (bucket == null) {
+            return;
+        }
+        bucket.remove(mobEntity);
+        if (bucket.isEmpty()) {
+            factionBuckets.remove(entry.section);
+            if (factionBuckets.isEmpty()) {
+                this.buckets.remove(entry.factionIndex);
+            }
+        }
+    }
+
+    private static long getSection(MobEntity mobEntity) {
+        return SectionPos.asLong(MathHelper.floor(mobEntity.getX()) >> 4, MathHelper.clamp(MathHelper.floor(mobEntity.getY()) >> 4, 0, 15), MathHelper.floor(mobEntity.getZ()) >> 4);
+    }
+
+    private static class Entry {
+        private Faction faction;
+        private int factionIndex;
+        private long section;
+
+        private Entry(Faction faction) {
+            this.faction = faction;
+        }
+    }
+}
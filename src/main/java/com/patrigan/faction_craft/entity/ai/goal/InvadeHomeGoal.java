@@ -3,21 +3,19 @@ package com.patrigan.faction_craft.entity.ai.goal;
 import com.google.common.collect.Lists;
 import com.patrigan.faction_craft.capabilities.raider.IRaider;
 import com.patrigan.faction_craft.capabilities.raider.RaiderHelper;
+import com.patrigan.faction_craft.raid.Raid;
 import net.minecraft.entity.CreatureEntity;
 import net.minecraft.entity.MobEntity;
 import net.minecraft.entity.ai.RandomPositionGenerator;
 import net.minecraft.entity.ai.goal.Goal;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.vector.Vector3d;
-import net.minecraft.village.PointOfInterestManager;
-import net.minecraft.village.PointOfInterestType;
 import net.minecraft.world.server.ServerWorld;
 import net.minecraftforge.common.util.LazyOptional;
 
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
 
 public class InvadeHomeGoal extends Goal {
     private final MobEntity raider;
@@ -40,7 +38,7 @@ public class InvadeHomeGoal extends Goal {
      */
     public boolean canUse() {
         this.updateVisited();
-        return this.raider instanceof CreatureEntity && this.isValidRaid() && this.hasSuitablePoi() && this.raider.getTarget() == null;
+        return this.raider instanceof CreatureEntity && this.isValidRaid() && this.raider.getTarget() == null && this.hasSuitablePoi();
     }
 
     private boolean isValidRaid() {
@@ -52,16 +50,16 @@ public class InvadeHomeGoal extends Goal {
         return raiderCapability.hasActiveRaid() && !raiderCapability.getRaid().isOver();
     }
 
+    /**
+     * Claims a home from the raid's shared list, so the raiders spread over the homes of the village
+     */
     private boolean hasSuitablePoi() {
-        ServerWorld serverworld = (ServerWorld)this.raider.level;
-        BlockPos blockpos = this.raider.blockPosition();
-        Optional<BlockPos> optional = serverworld.getPoiManager().getRandom((p_220859_0_) -> {
-            return p_220859_0_ == PointOfInterestType.HOME;
-        }, this::hasNotVisited, PointOfInterestManager.Status.ANY, blockpos, 48, this.raider.getRandom());
-        if (!optional.isPresent()) {
+        Raid raid = RaiderHelper.getRaiderCapability(this.raider).getRaid();
+        BlockPos home = raid.getHomeTargets().claim((ServerWorld) this.raider.level, raid.getCenter(), this.raider, this::hasNotVisited);
+        if (home == null) {
             return false;
         } else {
-            this.poiPos = optional.get().immutable();
+            this.poiPos = home;
             return true;
         }
     }
@@ -84,6 +82,10 @@ public class InvadeHomeGoal extends Goal {
         if (this.poiPos.closerThan(this.raider.position(), (double)this.distanceToPoi)) {
             this.visited.add(this.poiPos);
         }
+        IRaider raiderCapability = RaiderHelper.getRaiderCapability(this.raider);
+        if (raiderCapability.getRaid() != null) {
+            raiderCapability.getRaid().getHomeTargets().release(this.raider);
+        }
 
     }
 
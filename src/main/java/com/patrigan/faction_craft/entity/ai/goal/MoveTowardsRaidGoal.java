@@ -7,6 +7,7 @@ import net.minecraft.entity.CreatureEntity;
 import net.minecraft.entity.MobEntity;
 import net.minecraft.entity.ai.RandomPositionGenerator;
 import net.minecraft.entity.ai.goal.Goal;
+import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.vector.Vector3d;
 import net.minecraft.world.server.ServerWorld;
 import net.minecraftforge.common.util.LazyOptional;
@@ -58,6 +59,11 @@ public class MoveTowardsRaidGoal<T extends MobEntity> extends Goal {
 //            }
 
             if (this.mob.getNavigation().isDone()) {
+                // Follow the raid's shared route, and only look for a way of our own where it has none
+                BlockPos waypoint = raid.getFlowField().getWaypoint(this.mob.blockPosition());
+                if (waypoint != null && this.mob.getNavigation().moveTo(waypoint.getX() + 0.5D, waypoint.getY(), waypoint.getZ() + 0.5D, 1.0D)) {
+                    return;
+                }
                 Vector3d vector3d = RandomPositionGenerator.getPosTowards((CreatureEntity) this.mob, 15, 4, Vector3d.atBottomCenterOf(raid.getCenter()));
                 if (vector3d != null) {
                     this.mob.getNavigation().moveTo(vector3d.x, vector3d.y, vector3d.z, 1.0D);
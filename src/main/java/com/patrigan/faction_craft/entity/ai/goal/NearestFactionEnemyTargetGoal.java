@@ -1,7 +1,9 @@
 package com.patrigan.faction_craft.entity.ai.goal;
 
 import com.patrigan.faction_craft.capabilities.factionentity.FactionEntityHelper;
-import com.patrigan.faction_craft.capabilities.factionentity.IFactionEntity;
+import com.patrigan.faction_craft.entity.FactionEntityIndex;
+import com.patrigan.faction_craft.faction.Faction;
+import com.patrigan.faction_craft.faction.Factions;
 import net.minecraft.entity.EntityPredicate;
 import net.minecraft.entity.LivingEntity;
 import net.minecraft.entity.MobEntity;
@@ -14,23 +16,29 @@ import java.util.EnumSet;
 public class NearestFactionEnemyTargetGoal<T extends LivingEntity> extends TargetGoal {
    protected final int randomInterval;
    protected LivingEntity target;
-   /** This filter is applied to the Entity search. Only matching entities will be targeted. */
+   /** This filter is applied to the Entity search. Only matching entities will be targeted. Enemy factions are filtered by the {@link FactionEntityIndex}. */
    protected EntityPredicate targetConditions;
+   private Faction faction;
 
    public NearestFactionEnemyTargetGoal(MobEntity mobEntity, int randomInterval, boolean mustSee, boolean mustReach) {
       super(mobEntity, mustSee, mustReach);
       this.randomInterval = randomInterval;
       this.setFlags(EnumSet.of(Flag.TARGET));
-      this.targetConditions = (new EntityPredicate()).range(this.getFollowDistance()).selector(this::hasEnemyFaction);
+      this.targetConditions = (new EntityPredicate()).range(this.getFollowDistance());
    }
 
    /**
     * Returns whether execution should begin. You can also read and cache any state necessary for execution in this
     * method as well.
+    * Only a few mobs per chunk section get to search each tick, see {@link TargetScanBudget}.
     */
    public boolean canUse() {
       if (this.randomInterval > 0 && this.mob.getRandom().nextInt(this.randomInterval) != 0) {
          return false;
+      }
+      this.faction = FactionEntityHelper.getFactionEntityCapability(this.mob).getFaction();
+      if (this.faction == null || !Factions.hasEnemies(this.faction) || !TargetScanBudget.tryScan(this.mob)) {
+         return false;
       } else {
          this.findTarget();
          return this.target != null;
@@ -42,19 +50,8 @@ public class NearestFactionEnemyTargetGoal<T extends LivingEntity> extends Targe
    }
 
    protected void findTarget() {
-      this.target = this.mob.level.getNearestLoadedEntity(MobEntity.class, this.targetConditions, this.mob, this.mob.getX(), this.mob.getEyeY(), this.mob.getZ(), this.getTargetSearchArea(this.getFollowDistance()));
-   }
-
-   private boolean hasEnemyFaction(LivingEntity livingEntity) {
-      if(livingEntity instanceof MobEntity){
-         MobEntity targetMob = (MobEntity) livingEntity;
-         IFactionEntity targetCap = FactionEntityHelper.getFactionEntityCapability(targetMob);
-         IFactionEntity sourceCap = FactionEntityHelper.getFactionEntityCapability(this.mob);
-         if(sourceCap.getFaction() != null && targetCap.getFaction() != null && sourceCap.getFaction().getRelations().getEnemies().contains(targetCap.getFaction().getName())){
-            return true;
-         }
-      }
-      return false;
+      this.target = FactionEntityIndex.get(this.mob.level).getNearestEnemy(this.faction, this.getTargetSearchArea(this.getFollowDistance()), this.mob.getX(), this.mob.getEyeY(), this.mob.getZ(),
+              candidate -> candidate != this.mob && this.targetConditions.test(this.mob, candidate));
    }
 
    /**
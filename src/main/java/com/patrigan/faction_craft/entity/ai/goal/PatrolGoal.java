@@ -3,6 +3,7 @@ package com.patrigan.faction_craft.entity.ai.goal;
 
 import com.patrigan.faction_craft.capabilities.patroller.IPatroller;
 import com.patrigan.faction_craft.capabilities.patroller.PatrollerHelper;
+import com.patrigan.faction_craft.patrol.Patrol;
 import net.minecraft.entity.MobEntity;
 import net.minecraft.entity.ai.goal.Goal;
 import net.minecraft.pathfinding.PathNavigator;
@@ -12,7 +13,6 @@ import net.minecraft.world.gen.Heightmap;
 import net.minecraftforge.common.util.LazyOptional;
 
 import java.util.EnumSet;
-import java.util.List;
 import java.util.Random;
 
 public class PatrolGoal<T extends MobEntity> extends Goal {
@@ -40,7 +40,8 @@ public class PatrolGoal<T extends MobEntity> extends Goal {
             return false;
         }
         IPatroller cap = lazyCap.orElseThrow(() -> new IllegalStateException("Couldn't get the RaidManager capability from the world!"));
-        return cap.isPatrolling() && this.mob.getTarget() == null && !this.mob.isVehicle() && cap.hasPatrolTarget() && !flag;
+        Patrol patrol = cap.getPatrol();
+        return cap.isPatrolling() && this.mob.getTarget() == null && !this.mob.isVehicle() && (patrol == null || patrol.getTarget() != null) && !flag;
     }
 
     /**
@@ -60,16 +61,17 @@ public class PatrolGoal<T extends MobEntity> extends Goal {
      */
     public void tick() {
         IPatroller cap = PatrollerHelper.getPatrollerCapability(this.mob);
+        Patrol patrol = cap.getPatrol();
         boolean flag = cap.isPatrolLeader();
         PathNavigator pathnavigator = this.mob.getNavigation();
         if (pathnavigator.isDone()) {
-            List<MobEntity> list = this.findPatrolCompanions();
-            if (cap.isPatrolling() && list.isEmpty()) {
-                cap.setPatrolling(false);
-            } else if (flag && cap.getPatrolTarget().closerThan(this.mob.position(), 10.0D)) {
-                cap.findPatrolTarget();
+            if (patrol == null || !patrol.hasMember(this.mob.getUUID()) || patrol.getMembers().size() <= 1) {
+                cap.leavePatrol();
+            } else if (flag && patrol.getTarget().closerThan(this.mob.position(), 10.0D)) {
+                patrol.findTarget(this.mob.blockPosition(), this.mob.getRandom());
             } else {
-                Vector3d vector3d = Vector3d.atBottomCenterOf(cap.getPatrolTarget());
+                // The leader heads for the target, the other members follow the waypoint the leader set
+                Vector3d vector3d = Vector3d.atBottomCenterOf(flag ? patrol.getTarget() : patrol.getWaypoint());
                 Vector3d vector3d1 = this.mob.position();
                 Vector3d vector3d2 = vector3d1.subtract(vector3d);
                 vector3d = vector3d2.yRot(90.0F).scale(0.4D).add(vector3d);
@@ -80,23 +82,13 @@ public class PatrolGoal<T extends MobEntity> extends Goal {
                     this.moveRandomly();
                     this.cooldownUntil = this.mob.level.getGameTime() + 200L;
                 } else if (flag) {
-                    for(MobEntity patrollerentity : list) {
-                        IPatroller patrollerCap = PatrollerHelper.getPatrollerCapability(patrollerentity);
-                        patrollerCap.setPatrolTarget(blockpos);
-                    }
+                    patrol.setWaypoint(blockpos);
                 }
             }
         }
 
     }
 
-    private List<MobEntity> findPatrolCompanions() {
-        return this.mob.level.getEntitiesOfClass(MobEntity.class, this.mob.getBoundingBox().inflate(16.0D), (p_226543_1_) -> {
-            IPatroller cap = PatrollerHelper.getPatrollerCapability(this.mob);
-            return cap.canJoinPatrol(this.mob) && !p_226543_1_.is(this.mob);
-        });
-    }
-
     private boolean moveRandomly() {
         Random random = this.mob.getRandom();
         BlockPos blockpos = this.mob.level.getHeightmapPos(Heightmap.Type.MOTION_BLOCKING_NO_LEAVES, this.mob.blockPosition().offset(-8 + random.nextInt(16), 0, -8 + random.nextInt(16)));
@@ -0,0 +1,41 @@
+package com.patrigan.faction_craft.entity.ai.goal;
+
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import net.minecraft.entity.MobEntity;
+import net.minecraft.util.math.SectionPos;
+import net.minecraft.world.World;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Limits how many mobs per chunk section search for a target each tick, so a crowd of faction mobs spreads its searches over several ticks.
+ * Only used from the server thread.
+ */
+class TargetScanBudget {
+    private static final int SCANS_PER_SECTION = 2;
+    private static final Map<World, TargetScanBudget> BUDGETS = new WeakHashMap<>();
+
+    private long gameTime = Long.MIN_VALUE;
+    private final Long2IntMap scans = new Long2IntOpenHashMap();
+
+    /**
+     * @return true if the mob may search for a target this tick, counting the search against its section
+     */
+    static boolean tryScan(MobEntity mobEntity) {
+        TargetScanBudget budget = BUDGETS.computeIfAbsent(mobEntity.level, level -> new TargetScanBudget());
+        long gameTime = mobEntity.level.getGameTime();
+        if (budget.gameTime != gameTime) {
+            budget.gameTime = gameTime;
+            budget.scans.clear();
+        }
+        long section = SectionPos.of(mobEntity).asLong();
+        int scans = budget.scans.get(section);
+        if (scans >= SCANS_PER_SECTION) {
+            return false;
+        }
+        budget.scans.put(section, scans + 1);
+        return true;
+    }
+}
@@ -0,0 +1,188 @@
+package com.patrigan.faction_craft.faction;
+
+import com.patrigan.faction_craft.boost.Boost;
+import com.patrigan.faction_craft.boost.BoostCandidateTable;
+import com.patrigan.faction_craft.boost.LoadedBoosts;
+import com.patrigan.faction_craft.faction.entity.FactionEntityType;
+
+import java.util.*;
+
+/**
+ * Decides which boosts the slots of a group get to reach a target strength, following the faction's {@link FactionBoostConfig.BoostDistributionType}.
+ * Every boost is counted at its expected strength, but at least 1, so each step either moves closer to the target or closes a slot,
+ * and planning always ends after at most the target strength plus the number of slots steps.
+ */
+public class BoostPlanner {
+    // Group draws in UNIFORM_ALL that none of the slots could take before giving up
+    private static final int MAX_FAILED_GROUP_DRAWS = 8;
+
+    /**
+     * Adds the planned boosts to the slots.
+     * @param loadedBoosts the snapshot the slots' candidates were compiled against
+     * @return the planned strength
+     */
+    public static int plan(int targetStrength, List<BoostSlot> slots, Faction faction, LoadedBoosts loadedBoosts, Random random) {
+        if (slots.isEmpty() || targetStrength <= 0) {
+            return 0;
+        }
+        switch (faction.getBoostConfig().getBoostDistributionType()) {
+            case UNIFORM_ALL:
+                return planUniformAll(targetStrength, slots, faction, loadedBoosts, random);
+            case UNIFORM_TYPE:
+                return planUniformType(targetStrength, slots, random);
+            case LEADER:
+                return planLeader(targetStrength, slots, random);
+            case STRONG_FAVOURED:
+                return planWeighted(0, targetStrength, slots, strongFavouredWeights(slots), random);
+            case WEAK_FAVOURED:
+                return planWeighted(0, targetStrength, slots, weakFavouredWeights(slots), random);
+            case RANDOM:
+            default:
+                return planWeighted(0, targetStrength, slots, uniformWeights(slots), random);
+        }
+    }
+
+    /**
+     * The expected strength of a boost, at least 1 so planning can't stall on boosts that add nothing.
+     */
+    public static int getCost(Boost boost) {
+        return Math.max(1, boost.getStrengthAdjustment());
+    }
+
+    /**
+     * Boosts randomly picked slots, a slot is picked proportional to its weight.
+     * Slots that can't take any more boosts drop out.
+     */
+    private static int planWeighted(int plannedStrength, int targetStrength, List<BoostSlot> slots, int[] weights, Random random) {
+        int totalWeight = 0;
+        for (int weight : weights) {
+            totalWeight += weight;
+        }
+        while (plannedStrength < targetStrength && totalWeight > 0) {
+            int picked = random.nextInt(totalWeight);
+            int i = 0;
+            while (picked >= weights[i]) {
+                picked -= weights[i];
+                i++;
+            }
+            BoostSlot slot = slots.get(i);
+            Boost boost = slot.getCandidates().draw(random, slot.getAvailableTypes());
+            if (boost == null) {
+                totalWeight -= weights[i];
+                weights[i] = 0;
+                continue;
+            }
+            slot.add(boost);
+            plannedStrength += getCost(boost);
+        }
+        return plannedStrength;
+    }
+
+    /**
+     * Gives up to half the target strength to the leader, the strongest slot if none is marked, and spreads the rest randomly.
+     */
+    private static int planLeader(int targetStrength, List<BoostSlot> slots, Random random) {
+        int[] leaderWeights = new int[slots.size()];
+        int strongest = 0;
+        boolean hasLeader = false;
+        for (int i = 0; i < slots.size(); i++) {
+            if (slots.get(i).isLeader()) {
+                leaderWeights[i] = 1;
+                hasLeader = true;
+            }
+            if (slots.get(i).getStrength() > slots.get(strongest).getStrength()) {
+                strongest = i;
+            }
+        }
+        if (!hasLeader) {
+            leaderWeights[strongest] = 1;
+        }
+        int plannedStrength = planWeighted(0, (targetStrength + 1) / 2, slots, leaderWeights, random);
+        return planWeighted(plannedStrength, targetStrength, slots, uniformWeights(slots), random);
+    }
+
+    /**
+     * Boosts all slots of a randomly picked entity type with the same boost, until a type would go past the target strength.
+     */
+    private static int planUniformType(int targetStrength, List<BoostSlot> slots, Random random) {
+        Map<FactionEntityType, List<BoostSlot>> slotsByType = new LinkedHashMap<>();
+        for (BoostSlot slot : slots) {
+            slotsByType.computeIfAbsent(slot.getFactionEntityType(), key -> new ArrayList<>()).add(slot);
+        }
+        List<List<BoostSlot>> groups = new ArrayList<>(slotsByType.values());
+        int plannedStrength = 0;
+        while (plannedStrength < targetStrength && !groups.isEmpty()) {
+            int picked = random.nextInt(groups.size());
+            List<BoostSlot> group = groups.get(picked);
+            if (plannedStrength + group.size() > targetStrength) {
+                break;
+            }
+            BoostSlot first = group.get(0);
+            Boost boost = first.getCandidates().draw(random, first.getAvailableTypes());
+            if (boost == null) {
+                groups.remove(picked);
+                continue;
+            }
+            for (BoostSlot slot : group) {
+                if (slot.canTake(boost)) {
+                    slot.add(boost);
+                    plannedStrength += getCost(boost);
+                }
+            }
+        }
+        return plannedStrength;
+    }
+
+    /**
+     * Boosts every slot with the same boost from the faction's group candidates, as long as all slots fit in the target strength.
+     */
+    private static int planUniformAll(int targetStrength, List<BoostSlot> slots, Faction faction, LoadedBoosts loadedBoosts, Random random) {
+        BoostCandidateTable boostCandidates = faction.getBoostCandidates(loadedBoosts);
+        int plannedStrength = 0;
+        int failedDraws = 0;
+        while (plannedStrength + slots.size() <= targetStrength && failedDraws < MAX_FAILED_GROUP_DRAWS) {
+            Boost boost = boostCandidates.draw(random);
+            if (boost == null) {
+                break;
+            }
+            int addedStrength = 0;
+            for (BoostSlot slot : slots) {
+                if (slot.canTake(boost)) {
+                    slot.add(boost);
+                    addedStrength += getCost(boost);
+                }
+            }
+            if (addedStrength == 0) {
+                failedDraws++;
+            }
+            plannedStrength += addedStrength;
+        }
+        return plannedStrength;
+    }
+
+    private static int[] uniformWeights(List<BoostSlot> slots) {
+        int[] weights = new int[slots.size()];
+        Arrays.fill(weights, 1);
+        return weights;
+    }
+
+    private static int[] strongFavouredWeights(List<BoostSlot> slots) {
+        int[] weights = new int[slots.size()];
+        for (int i = 0; i < slots.size(); i++) {
+            weights[i] = Math.max(1, slots.get(i).getStrength());
+        }
+        return weights;
+    }
+
+    private static int[] weakFavouredWeights(List<BoostSlot> slots) {
+        int maxStrength = 0;
+        for (BoostSlot slot : slots) {
+            maxStrength = Math.max(maxStrength, slot.getStrength());
+        }
+        int[] weights = new int[slots.size()];
+        for (int i = 0; i < slots.size(); i++) {
+            weights[i] = Math.max(1, maxStrength + 1 - slots.get(i).getStrength());
+        }
+        return weights;
+    }
+}
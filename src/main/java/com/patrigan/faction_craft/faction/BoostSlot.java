@@ -0,0 +1,89 @@
+package com.patrigan.faction_craft.faction;
+
+import com.patrigan.faction_craft.boost.Boost;
+import com.patrigan.faction_craft.boost.BoostCandidateTable;
+import com.patrigan.faction_craft.boost.LoadedBoosts;
+import com.patrigan.faction_craft.capabilities.appliedboosts.IAppliedBoosts;
+import com.patrigan.faction_craft.faction.entity.FactionEntityType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One entity as {@link BoostPlanner} sees it: its candidate boosts, how many boosts of each type it has and the boosts planned for it.
+ * A slot doesn't need the entity to exist, so a wave can be planned before it spawns.
+ */
+public class BoostSlot {
+    private final FactionEntityType factionEntityType;
+    private final BoostCandidateTable candidates;
+    private final int[] typeCounts;
+    private final boolean leader;
+    private final List<Boost> boosts = new ArrayList<>();
+
+    private BoostSlot(FactionEntityType factionEntityType, BoostCandidateTable candidates, int[] typeCounts, boolean leader) {
+        this.factionEntityType = factionEntityType;
+        this.candidates = candidates;
+        this.typeCounts = typeCounts;
+        this.leader = leader;
+    }
+
+    /**
+     * A slot for an entity that hasn't spawned yet, counting the mandatory boosts it will get when it does.
+     * Everything is resolved against the given snapshot, so this is safe to call off the main thread.
+     */
+    public static BoostSlot forPlannedEntity(LoadedBoosts loadedBoosts, Faction faction, FactionEntityType factionEntityType, boolean leader) {
+        int[] typeCounts = new int[Boost.BoostType.values().length];
+        faction.getBoostConfig().getMandatoryBoosts(loadedBoosts).forEach(boost -> typeCounts[boost.getType().ordinal()]++);
+        factionEntityType.getBoostConfig().getMandatoryBoosts(loadedBoosts).forEach(boost -> typeCounts[boost.getType().ordinal()]++);
+        return new BoostSlot(factionEntityType, faction.getBoostCandidates(loadedBoosts, factionEntityType), typeCounts, leader);
+    }
+
+    /**
+     * A slot for an entity that is already in the world, counting the boosts it has.
+     */
+    public static BoostSlot forEntity(Faction faction, FactionEntityType factionEntityType, IAppliedBoosts appliedBoosts, boolean leader) {
+        Boost.BoostType[] types = Boost.BoostType.values();
+        int[] typeCounts = new int[types.length];
+        for (int t = 0; t < types.length; t++) {
+            typeCounts[t] = appliedBoosts.countBoostsOfType(types[t]);
+        }
+        return new BoostSlot(factionEntityType, faction.getBoostCandidates(factionEntityType), typeCounts, leader);
+    }
+
+    public FactionEntityType getFactionEntityType() {
+        return factionEntityType;
+    }
+
+    public BoostCandidateTable getCandidates() {
+        return candidates;
+    }
+
+    public boolean isLeader() {
+        return leader;
+    }
+
+    public int getStrength() {
+        return factionEntityType.getStrength();
+    }
+
+    /**
+     * @return a bitmask of the boost type ordinals this slot can still take another boost of, see {@link BoostCandidateTable#draw(java.util.Random, long)}
+     */
+    public long getAvailableTypes() {
+        return candidates.getAvailableTypes(typeCounts);
+    }
+
+    public boolean canTake(Boost boost) {
+        Boost.BoostType type = boost.getType();
+        return typeCounts[type.ordinal()] < type.getMax();
+    }
+
+    public void add(Boost boost) {
+        boosts.add(boost);
+        typeCounts[boost.getType().ordinal()]++;
+    }
+
+    public List<Boost> getBoosts() {
+        return boosts;
+    }
+}
@@ -3,18 +3,29 @@ package com.patrigan.faction_craft.faction;
 import com.mojang.datafixers.util.Pair;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
+import com.patrigan.faction_craft.boost.Boost;
+import com.patrigan.faction_craft.boost.BoostCandidateTable;
+import com.patrigan.faction_craft.boost.Boosts;
+import com.patrigan.faction_craft.boost.LoadedBoosts;
 import com.patrigan.faction_craft.faction.entity.FactionEntityType;
+import com.patrigan.faction_craft.util.AliasSampler;
 import net.minecraft.entity.MobEntity;
 import net.minecraft.inventory.EquipmentSlotType;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.util.ResourceLocation;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import static com.patrigan.faction_craft.faction.entity.FactionEntityType.FactionRank.MOUNT;
+import static com.patrigan.faction_craft.faction.entity.FactionEntityType.FactionRank.SOLDIER;
 
 public class Faction {
     public static final Faction DEFAULT = new Faction(new ResourceLocation("faction/default"), false, new CompoundNBT(), FactionRaidConfig.DEFAULT, FactionBoostConfig.DEFAULT, FactionRelations.DEFAULT, Collections.emptyList());
@@ -37,6 +48,15 @@ public class Faction {
     private final FactionBoostConfig boostConfig;
     private final FactionRelations relations;
     private final List<FactionEntityType> entityTypes;
+    private final int maximumMinimumWave;
+    private final Map<FactionEntityType, Integer> entityTypeOrdinals = new IdentityHashMap<>();
+    private volatile int index = -1;
+    private final Map<Integer, AliasSampler<FactionEntityType>> waveSamplers = new ConcurrentHashMap<>();
+    private final Map<ResourceLocation, Map<Integer, AliasSampler<FactionEntityType>>> mountSamplers = new ConcurrentHashMap<>();
+    private volatile AliasSampler<FactionEntityType> patrolLeaderSampler;
+    private volatile AliasSampler<FactionEntityType> patrolSoldierSampler;
+    private volatile BoostCandidateTable groupBoostCandidates;
+    private final Map<FactionEntityType, BoostCandidateTable> entityBoostCandidates = new ConcurrentHashMap<>();
 
     public Faction(ResourceLocation name, boolean replace, CompoundNBT banner, FactionRaidConfig raidConfig, FactionBoostConfig boostConfig, FactionRelations relations, List<FactionEntityType> entityTypes) {
         this.name = name;
@@ -46,6 +66,11 @@ public class Faction {
         this.boostConfig = boostConfig;
         this.relations = relations;
         this.entityTypes = entityTypes;
+        this.maximumMinimumWave = entityTypes.stream().mapToInt(FactionEntityType::getMinimumWave).max().orElse(0);
+        Map<ResourceLocation, Integer> counts = new HashMap<>();
+        for (FactionEntityType factionEntityType : entityTypes) {
+            entityTypeOrdinals.put(factionEntityType, counts.merge(factionEntityType.getEntityType(), 1, Integer::sum) - 1);
+        }
     }
 
     public ResourceLocation getName() {
@@ -76,6 +101,68 @@ public class Faction {
         return entityTypes;
     }
 
+    /**
+     * The dense index of this faction in the current {@link FactionRelationMatrix}, or -1 if it isn't loaded.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    void setIndex(int index) {
+        this.index = index;
+    }
+
+    /**
+     * Boost candidates for boosts applied to a whole group of this faction at once.
+     */
+    public BoostCandidateTable getBoostCandidates(){
+        return getBoostCandidates(Boosts.getLoadedBoosts());
+    }
+
+    /**
+     * Boost candidates for boosts applied to a whole group of this faction at once, compiled against the given snapshot.
+     * Only tables for the current snapshot are cached.
+     */
+    public BoostCandidateTable getBoostCandidates(LoadedBoosts loadedBoosts){
+        BoostCandidateTable table = groupBoostCandidates;
+        if(table == null || !table.isCompiledFor(loadedBoosts)){
+            table = BoostCandidateTable.forGroup(loadedBoosts, boostConfig.getWhitelistResourceLocations(), boostConfig.getBlacklistResourceLocations());
+            if(loadedBoosts == Boosts.getLoadedBoosts()){
+                groupBoostCandidates = table;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Boost candidates for a single entity of the given type, combining the faction and entity type boost configs.
+     */
+    public BoostCandidateTable getBoostCandidates(FactionEntityType factionEntityType){
+        return getBoostCandidates(Boosts.getLoadedBoosts(), factionEntityType);
+    }
+
+    /**
+     * Boost candidates for a single entity of the given type, compiled against the given snapshot.
+     * Only tables for the current snapshot are cached.
+     */
+    public BoostCandidateTable getBoostCandidates(LoadedBoosts loadedBoosts, FactionEntityType factionEntityType){
+        BoostCandidateTable table = entityBoostCandidates.get(factionEntityType);
+        if(table == null || !table.isCompiledFor(loadedBoosts)){
+            List<ResourceLocation> whitelist = new ArrayList<>(boostConfig.getWhitelistResourceLocations());
+            whitelist.addAll(factionEntityType.getBoostConfig().getWhitelistResourceLocations());
+            List<ResourceLocation> blacklist = new ArrayList<>(boostConfig.getBlacklistResourceLocations());
+            blacklist.addAll(factionEntityType.getBoostConfig().getBlacklistResourceLocations());
+            Map<ResourceLocation, Boost.Rarity> rarityOverrides = new HashMap<>();
+            boostConfig.getRarityOverridesLocations().forEach(pair -> rarityOverrides.put(pair.getFirst(), pair.getSecond()));
+            factionEntityType.getBoostConfig().getRarityOverridesLocations().forEach(pair -> rarityOverrides.put(pair.getFirst(), pair.getSecond()));
+            table = BoostCandidateTable.forEntity(loadedBoosts, whitelist, blacklist, rarityOverrides);
+            if(loadedBoosts == Boosts.getLoadedBoosts()){
+                entityBoostCandidates.put(factionEntityType, table);
+            }
+        }
+        return table;
+    }
+
     public List<Pair<FactionEntityType, Integer>> getWeightMap(){
         return entityTypes.stream().map(factionEntityType -> new Pair<>(factionEntityType, factionEntityType.getWeight())).collect(Collectors.toList());
     }
@@ -86,6 +173,85 @@ public class Faction {
         return entityTypes.stream().filter(factionEntityType -> factionEntityType.hasRank(rank)).map(factionEntityType -> new Pair<>(factionEntityType, factionEntityType.getWeight())).collect(Collectors.toList());
     }
 
+    /**
+     * Sampler over the non-mount entity types available in the given wave.
+     * Waves past the highest minimum wave all share the same sampler.
+     */
+    public AliasSampler<FactionEntityType> getSamplerForWave(int wave){
+        return waveSamplers.computeIfAbsent(Math.min(wave, maximumMinimumWave), key ->
+                AliasSampler.create(entityTypes.stream().filter(factionEntityType -> factionEntityType.getMinimumWave() <= key && !factionEntityType.hasRank(MOUNT)).collect(Collectors.toList()), FactionEntityType::getWeight));
+    }
+
+    /**
+     * Sampler for patrol members, leaders are picked from the entity types that can hold a banner.
+     */
+    public AliasSampler<FactionEntityType> getPatrolSampler(boolean leader){
+        if(leader){
+            if(patrolLeaderSampler == null){
+                patrolLeaderSampler = AliasSampler.create(entityTypes.stream().filter(FactionEntityType::canBeBannerHolder).collect(Collectors.toList()), FactionEntityType::getWeight);
+            }
+            return patrolLeaderSampler;
+        }else{
+            if(patrolSoldierSampler == null){
+                patrolSoldierSampler = AliasSampler.create(entityTypes.stream().filter(factionEntityType -> factionEntityType.getRank().equals(SOLDIER)).collect(Collectors.toList()), FactionEntityType::getWeight);
+            }
+            return patrolSoldierSampler;
+        }
+    }
+
+    /**
+     * Sampler over the mount entity types of the given entity type that are available in the given wave.
+     * Use Integer.MAX_VALUE as wave to ignore the minimum wave.
+     */
+    public AliasSampler<FactionEntityType> getMountSampler(ResourceLocation entityType, int wave){
+        return mountSamplers.computeIfAbsent(entityType, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(Math.min(wave, maximumMinimumWave), key ->
+                        AliasSampler.create(entityTypes.stream().filter(factionEntityType -> factionEntityType.hasRank(MOUNT) && factionEntityType.getEntityType().equals(entityType) && factionEntityType.getMinimumWave() <= key).collect(Collectors.toList()), FactionEntityType::getWeight));
+    }
+
+    /**
+     * The position of the given entity type among this faction's entity types with the same entity,
+     * together with the entity it forms the key under which faction mobs reference their type.
+     * @return the ordinal, or -1 if the entity type isn't part of this faction
+     */
+    public int getEntityTypeOrdinal(FactionEntityType factionEntityType){
+        return entityTypeOrdinals.getOrDefault(factionEntityType, -1);
+    }
+
+    /**
+     * Resolves a stored entity type key to the shared entity type instance of this faction.
+     * Falls back to the first entity type with the same entity and rank if the ordinal no longer matches.
+     * @return the entity type, or null if this faction no longer has a matching one
+     */
+    public FactionEntityType getEntityType(ResourceLocation entityType, FactionEntityType.FactionRank rank, int ordinal){
+        FactionEntityType fallback = null;
+        for (FactionEntityType factionEntityType : entityTypes) {
+            if(factionEntityType.getEntityType().equals(entityType) && factionEntityType.getRank().equals(rank)){
+                if(getEntityTypeOrdinal(factionEntityType) == ordinal){
+                    return factionEntityType;
+                }
+                if(fallback == null){
+                    fallback = factionEntityType;
+                }
+            }
+        }
+        return fallback;
+    }
+
+    /**
+     * Finds the entity type of this faction with the same entity, rank and tag as the given one.
+     * Used for faction mobs saved with a full copy of their entity type.
+     * @return the entity type, or null if this faction has no matching one
+     */
+    public FactionEntityType getMatchingEntityType(FactionEntityType copy){
+        for (FactionEntityType factionEntityType : entityTypes) {
+            if(factionEntityType.getEntityType().equals(copy.getEntityType()) && factionEntityType.getRank().equals(copy.getRank()) && factionEntityType.getTag().equals(copy.getTag())){
+                return factionEntityType;
+            }
+        }
+        return null;
+    }
+
     public ItemStack getBannerInstance() {
         ItemStack itemstack = ItemStack.of(banner);
         return itemstack;
@@ -6,6 +6,7 @@ import com.mojang.serialization.DataResult;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 import com.patrigan.faction_craft.boost.Boost;
 import com.patrigan.faction_craft.boost.Boosts;
+import com.patrigan.faction_craft.boost.LoadedBoosts;
 import net.minecraft.util.ResourceLocation;
 
 import java.util.ArrayList;
@@ -53,6 +54,10 @@ public class FactionBoostConfig {
         return mandatoryResourceLocations.stream().map(Boosts::getBoost).collect(Collectors.toList());
     }
 
+    public List<Boost> getMandatoryBoosts(LoadedBoosts loadedBoosts){
+        return mandatoryResourceLocations.stream().map(loadedBoosts::getBoost).collect(Collectors.toList());
+    }
+
     public List<ResourceLocation> getWhitelistResourceLocations() {
         return whitelistResourceLocations;
     }
@@ -83,7 +88,6 @@ public class FactionBoostConfig {
         RANDOM("random"),
         UNIFORM_ALL("uniform_all"),
         UNIFORM_TYPE("uniform_type"),
-        //Not yet supported types:
         LEADER("leader"),
         STRONG_FAVOURED("strong_favoured"),
         WEAK_FAVOURED("weak_favoured");
@@ -2,110 +2,73 @@ package com.patrigan.faction_craft.faction;
 
 import com.patrigan.faction_craft.boost.Boost;
 import com.patrigan.faction_craft.boost.Boosts;
+import com.patrigan.faction_craft.boost.LoadedBoosts;
+import com.patrigan.faction_craft.capabilities.appliedboosts.AppliedBoostsHelper;
+import com.patrigan.faction_craft.capabilities.appliedboosts.IAppliedBoosts;
 import com.patrigan.faction_craft.capabilities.factionentity.FactionEntityHelper;
-import com.patrigan.faction_craft.capabilities.factionentity.IFactionEntity;
 import com.patrigan.faction_craft.faction.entity.FactionEntityType;
 import net.minecraft.entity.MobEntity;
 import net.minecraft.world.server.ServerWorld;
 
 import java.util.*;
-import java.util.stream.Collectors;
-
-import static com.patrigan.faction_craft.util.GeneralUtils.getRandomItem;
 
 public class FactionBoostHelper {
 
+    /**
+     * Plans boosts for the entities with {@link BoostPlanner} and applies them.
+     * @return the strength the applied boosts added
+     */
     public static int applyBoosts(int targetStrength, List<MobEntity> flatEntities, Faction faction, ServerWorld level) {
         if(flatEntities.isEmpty()){
             return 0;
         }
-        switch(faction.getBoostConfig().getBoostDistributionType()){
-            case UNIFORM_ALL:
-                return applyUniformAll(targetStrength, flatEntities, level, faction);
-            case UNIFORM_TYPE:
-                return applyUniformType(targetStrength, flatEntities, level, faction);
-            case LEADER:
-            case STRONG_FAVOURED:
-            case WEAK_FAVOURED:
-            case RANDOM:
-            default:
-                return applyRandom(targetStrength, flatEntities, level, faction);
+        LoadedBoosts loadedBoosts = Boosts.getLoadedBoosts();
+        List<MobEntity> entities = new ArrayList<>(flatEntities.size());
+        List<BoostSlot> slots = new ArrayList<>(flatEntities.size());
+        for (MobEntity mobEntity : flatEntities) {
+            FactionEntityType factionEntityType = FactionEntityHelper.getFactionEntityCapability(mobEntity).getFactionEntityType();
+            IAppliedBoosts appliedBoosts = AppliedBoostsHelper.getAppliedBoostsCapabilityLazy(mobEntity).orElse(null);
+            if(factionEntityType == null || appliedBoosts == null){
+                continue;
+            }
+            entities.add(mobEntity);
+            slots.add(BoostSlot.forEntity(faction, factionEntityType, appliedBoosts, false));
         }
-    }
-
-    private static int applyUniformAll(int targetStrength, List<MobEntity> entities, ServerWorld level, Faction faction) {
+        BoostPlanner.plan(targetStrength, slots, faction, loadedBoosts, level.random);
         int appliedStrength = 0;
-        Random random = level.random;
-        while(appliedStrength+entities.size() <= targetStrength) {
-            Boost boost = Boosts.getRandomBoost(random, faction.getBoostConfig().getWhitelistBoosts(), faction.getBoostConfig().getBlacklistBoosts());
-            if(boost == null){
-                break;
-            }
-            Optional<Integer> reduce = entities.stream().map(boost::apply).reduce(Integer::sum);
-            if(reduce.isPresent()){
-                appliedStrength += reduce.get();
-            }
+        for (int i = 0; i < slots.size(); i++) {
+            appliedStrength += applyPlannedBoosts(entities.get(i), slots.get(i).getBoosts());
         }
         return appliedStrength;
     }
 
-    private static int applyUniformType(int targetStrength, List<MobEntity> entities, ServerWorld level, Faction faction) {
-        int appliedStrength = 0;
-        Random random = level.random;
-        Set<FactionEntityType> factionEntityTypes = entities.stream().map(mobEntity -> FactionEntityHelper.getFactionEntityCapability(mobEntity).getFactionEntityType()).collect(Collectors.toSet());
-        while(appliedStrength < targetStrength) {
-            FactionEntityType randomFactionEntityType = getRandomItem(new ArrayList<>(factionEntityTypes), random);
-            List<MobEntity> entitiesWithType = entities.stream().filter(mobEntity -> randomFactionEntityType.equals(FactionEntityHelper.getFactionEntityCapability(mobEntity).getFactionEntityType())).collect(Collectors.toList());
-            if(appliedStrength+entitiesWithType.size() > targetStrength){
-                break;
-            }
-            MobEntity randomEntity = entitiesWithType.get(0);
-            Boost boost = Boosts.getRandomBoostForEntity(random, randomEntity, getWhitelistBoosts(faction, randomFactionEntityType), getBlacklistBoosts(faction, randomFactionEntityType), getRarityOverrides(faction, randomFactionEntityType));
-            if(boost == null){
-                break;
-            }
-            Optional<Integer> reduce = entitiesWithType.stream().map(boost::apply).reduce(Integer::sum);
-            if(reduce.isPresent()){
-                appliedStrength += reduce.get();
-            }
+    /**
+     * Plans boosts for a group that hasn't spawned yet.
+     * @param loadedBoosts the snapshot to plan against, taken on the main thread when planning off it
+     * @param leaderSlot the slot of the group leader, or -1 if it has none
+     * @return the planned boosts per slot
+     */
+    public static List<List<Boost>> planBoosts(LoadedBoosts loadedBoosts, int targetStrength, List<FactionEntityType> factionEntityTypes, int leaderSlot, Faction faction, Random random) {
+        List<BoostSlot> slots = new ArrayList<>(factionEntityTypes.size());
+        for (int i = 0; i < factionEntityTypes.size(); i++) {
+            slots.add(BoostSlot.forPlannedEntity(loadedBoosts, faction, factionEntityTypes.get(i), i == leaderSlot));
         }
-        return appliedStrength;
+        BoostPlanner.plan(targetStrength, slots, faction, loadedBoosts, random);
+        List<List<Boost>> slotBoosts = new ArrayList<>(slots.size());
+        for (BoostSlot slot : slots) {
+            slotBoosts.add(slot.getBoosts());
+        }
+        return slotBoosts;
     }
 
-    private static int applyRandom(int targetStrength, List<MobEntity> entities, ServerWorld level, Faction faction) {
+    /**
+     * @return the strength the boosts added
+     */
+    public static int applyPlannedBoosts(MobEntity mobEntity, List<Boost> boosts) {
         int appliedStrength = 0;
-        Random random = level.random;
-        while(appliedStrength < targetStrength) {
-            MobEntity randomEntity = getRandomItem(entities, random);
-            IFactionEntity cap = FactionEntityHelper.getFactionEntityCapability(randomEntity);
-            FactionEntityType factionEntityType = cap.getFactionEntityType();
-            Boost boost = Boosts.getRandomBoostForEntity(random, randomEntity, getWhitelistBoosts(faction, factionEntityType), getBlacklistBoosts(faction, factionEntityType), getRarityOverrides(faction, factionEntityType));
-            if(boost == null){
-                break;
-            }
-            appliedStrength += boost.apply(randomEntity);
+        for (Boost boost : boosts) {
+            appliedStrength += boost.apply(mobEntity);
         }
         return appliedStrength;
     }
-
-    public static List<Boost> getWhitelistBoosts(Faction faction, FactionEntityType factionEntityType){
-        List<Boost> resultList = new ArrayList<>();
-        resultList.addAll(faction.getBoostConfig().getWhitelistBoosts());
-        resultList.addAll(factionEntityType.getBoostConfig().getWhitelistBoosts());
-        return resultList;
-    }
-
-    public static List<Boost> getBlacklistBoosts(Faction faction, FactionEntityType factionEntityType){
-        List<Boost> resultList = new ArrayList<>();
-        resultList.addAll(faction.getBoostConfig().getBlacklistBoosts());
-        resultList.addAll(factionEntityType.getBoostConfig().getBlacklistBoosts());
-        return resultList;
-    }
-
-    public static Map<Boost, Boost.Rarity> getRarityOverrides(Faction faction, FactionEntityType factionEntityType){
-        Map<Boost, Boost.Rarity> resultMap = new HashMap<>();
-        resultMap.putAll(faction.getBoostConfig().getRarityOverrides());
-        resultMap.putAll(factionEntityType.getBoostConfig().getRarityOverrides());
-        return resultMap;
-    }
 }
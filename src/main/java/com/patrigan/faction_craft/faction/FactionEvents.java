@@ -20,7 +20,7 @@ public class FactionEvents {
             IFactionEntity targetCap = FactionEntityHelper.getFactionEntityCapability((MobEntity) event.getEntityLiving());
             IFactionEntity sourceCap = FactionEntityHelper.getFactionEntityCapability((MobEntity) event.getSource().getEntity());
             if(targetCap.getFaction() != null && sourceCap.getFaction() != null) {
-                if (targetCap.getFaction() == sourceCap.getFaction() || sourceCap.getFaction().getRelations().getAllies().contains(targetCap.getFaction().getName())) {
+                if (targetCap.getFaction() == sourceCap.getFaction() || Factions.isAlly(sourceCap.getFaction(), targetCap.getFaction())) {
                     event.setCanceled(true);
                 }
             }
@@ -0,0 +1,86 @@
+package com.patrigan.faction_craft.faction;
+
+import net.minecraft.util.ResourceLocation;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled faction relations. Every loaded faction gets a dense index, relations are stored as one bitset row per faction.
+ */
+public class FactionRelationMatrix {
+    public static final FactionRelationMatrix EMPTY = new FactionRelationMatrix(0, new long[0], new long[0]);
+
+    private final int size;
+    private final int rowWords;
+    private final long[] enemies;
+    private final long[] allies;
+
+    private FactionRelationMatrix(int size, long[] enemies, long[] allies) {
+        this.size = size;
+        this.rowWords = (size + 63) >>> 6;
+        this.enemies = enemies;
+        this.allies = allies;
+    }
+
+    /**
+     * Assigns each faction its index in iteration order and compiles the relations between them.
+     * Relations towards factions that aren't loaded are dropped.
+     */
+    public static FactionRelationMatrix compile(Map<ResourceLocation, Faction> factions) {
+        int size = factions.size();
+        int rowWords = (size + 63) >>> 6;
+        int index = 0;
+        for (Faction faction : factions.values()) {
+            faction.setIndex(index++);
+        }
+        long[] enemies = new long[size * rowWords];
+        long[] allies = new long[size * rowWords];
+        for (Faction faction : factions.values()) {
+            setBits(enemies, rowWords, faction.getIndex(), faction.getRelations().getEnemies(), factions);
+            setBits(allies, rowWords, faction.getIndex(), faction.getRelations().getAllies(), factions);
+        }
+        return new FactionRelationMatrix(size, enemies, allies);
+    }
+
+    private static void setBits(long[] matrix, int rowWords, int row, List<ResourceLocation> relations, Map<ResourceLocation, Faction> factions) {
+        for (ResourceLocation resourceLocation : relations) {
+            Faction other = factions.get(resourceLocation);
+            if (other != null) {
+                int column = other.getIndex();
+                matrix[row * rowWords + (column >>> 6)] |= 1L << column;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEnemy(int sourceIndex, int targetIndex) {
+        return isSet(enemies, sourceIndex, targetIndex);
+    }
+
+    public boolean hasEnemies(int sourceIndex) {
+        if (sourceIndex < 0 || sourceIndex >= size) {
+            return false;
+        }
+        for (int word = 0; word < rowWords; word++) {
+            if (enemies[sourceIndex * rowWords + word] != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isAlly(int sourceIndex, int targetIndex) {
+        return isSet(allies, sourceIndex, targetIndex);
+    }
+
+    private boolean isSet(long[] matrix, int row, int column) {
+        if (row < 0 || column < 0 || row >= size || column >= size) {
+            return false;
+        }
+        return (matrix[row * rowWords + (column >>> 6)] & (1L << column)) != 0;
+    }
+}
@@ -3,9 +3,10 @@ package com.patrigan.faction_craft.faction;
 import com.mojang.datafixers.util.Pair;
 import com.patrigan.faction_craft.FactionCraft;
 import com.patrigan.faction_craft.boost.Boost;
+import com.patrigan.faction_craft.config.ConfigSnapshot;
 import com.patrigan.faction_craft.data.util.MergeableCodecDataManager;
+import com.patrigan.faction_craft.entity.FactionEntityIndex;
 import com.patrigan.faction_craft.faction.entity.FactionEntityType;
-import com.patrigan.faction_craft.util.GeneralUtils;
 import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.util.ResourceLocation;
 import net.minecraftforge.event.AddReloadListenerEvent;
@@ -16,12 +17,16 @@ import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import static com.patrigan.faction_craft.config.FactionCraftConfig.DISABLED_FACTIONS;
-
 @Mod.EventBusSubscriber(modid = FactionCraft.MODID, bus = Mod.EventBusSubscriber.Bus.FORGE)
 public class Factions {
 
-    private static final MergeableCodecDataManager<Faction, Faction> FACTION_DATA = new MergeableCodecDataManager<>("faction", FactionCraft.LOGGER, Faction.CODEC, Factions::factionMerger);
+    private static final MergeableCodecDataManager<Faction, Faction> FACTION_DATA = new MergeableCodecDataManager<>("faction", FactionCraft.LOGGER, Faction.CODEC, Factions::factionMerger)
+            .enableCompiledCache(FactionCraft.MODID, "factions.nbt", Faction.CODEC)
+            .addReloadCallback(Factions::onFactionDataReloaded);
+    private static volatile EnabledFactions enabledFactions = EnabledFactions.EMPTY;
+    private static volatile FactionRelationMatrix relationMatrix = FactionRelationMatrix.EMPTY;
+    // Every faction instance that may still be held somewhere, they all get their index updated on reload
+    private static final Set<Faction> indexedFactions = Collections.newSetFromMap(new WeakHashMap<>());
 
     public static Faction factionMerger(List<Faction> raws){
         ResourceLocation name = null;
@@ -29,7 +34,8 @@ public class Factions {
         FactionRaidConfig factionRaidConfig = null;
         FactionBoostConfig boostConfig = null;
         FactionRelations factionRelations = null;
-        Set<FactionEntityType> entities = new HashSet<>();
+        // Kept in data pack order, faction mobs and wave plans store their entity type by its position among the entity types with the same entity
+        Set<FactionEntityType> entities = new LinkedHashSet<>();
         for (Faction raw : raws) {
             if (raw.isReplace()) {
                 banner = raw.getBanner();
@@ -37,7 +43,7 @@ public class Factions {
                 factionRaidConfig = raw.getRaidConfig();
                 boostConfig = null;
                 factionRelations = null;
-                entities = new HashSet<>();
+                entities = new LinkedHashSet<>();
             }
             if(banner == null){
                 banner = raw.getBanner();
@@ -71,25 +77,59 @@ public class Factions {
 
 
     public static Faction getFaction(ResourceLocation factionResourceLocation){
-        return getFactionData().getOrDefault(factionResourceLocation, Faction.DEFAULT);
+        return enabledFactions.factions.getOrDefault(factionResourceLocation, Faction.DEFAULT);
     }
 
     public static boolean factionExists(ResourceLocation factionResourceLocation){
-        return getFactionData().containsKey(factionResourceLocation);
+        return enabledFactions.factions.containsKey(factionResourceLocation);
     }
 
     public static Collection<ResourceLocation> factionKeys(){
-        return getFactionData().keySet();
-    }
-
-    private static Map<ResourceLocation, Faction> getFactionData(){
-        return FACTION_DATA.data.entrySet().stream().filter(entry -> !DISABLED_FACTIONS.get().contains(entry.getKey().toString())).collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        return enabledFactions.factions.keySet();
     }
 
     public static Faction getDefaultFaction(){
         return FACTION_DATA.data.get(new ResourceLocation("illager"));
     }
 
+    public static boolean isEnemy(int sourceIndex, int targetIndex){
+        return relationMatrix.isEnemy(sourceIndex, targetIndex);
+    }
+
+    public static boolean isEnemy(Faction source, Faction target){
+        return relationMatrix.isEnemy(source.getIndex(), target.getIndex());
+    }
+
+    public static boolean hasEnemies(Faction source){
+        return relationMatrix.hasEnemies(source.getIndex());
+    }
+
+    public static boolean isAlly(Faction source, Faction target){
+        return relationMatrix.isAlly(source.getIndex(), target.getIndex());
+    }
+
+    private static void onFactionDataReloaded(){
+        relationMatrix = FactionRelationMatrix.compile(FACTION_DATA.data);
+        // Faction instances from earlier reloads may still be referenced by entities, patrols and the like, point them at the new indices by name
+        for (Faction faction : indexedFactions) {
+            Faction reloaded = FACTION_DATA.data.get(faction.getName());
+            if(reloaded != faction) {
+                faction.setIndex(reloaded == null ? -1 : reloaded.getIndex());
+            }
+        }
+        indexedFactions.addAll(FACTION_DATA.data.values());
+        rebuildEnabledFactions();
+        FactionEntityIndex.onFactionsReloaded();
+    }
+
+    /**
+     * Rebuilds the enabled faction snapshot from the loaded faction data and the disabled factions config.
+     * Called after every datapack reload and every config (re)load.
+     */
+    public static void rebuildEnabledFactions(){
+        enabledFactions = new EnabledFactions(FACTION_DATA.data, ConfigSnapshot.get().disabledFactions);
+    }
+
     @SubscribeEvent
     public static void onAddReloadListeners(AddReloadListenerEvent event)
     {
@@ -97,9 +137,40 @@ public class Factions {
     }
 
     public static Faction getRandomFaction(Random random) {
-        return GeneralUtils.getRandomItem(new ArrayList<>(getFactionData().values()), random);
+        return getRandomItem(enabledFactions.factionArray, random);
     }
     public static Faction getRandomFactionWithEnemies(Random random) {
-        return GeneralUtils.getRandomItem(getFactionData().values().stream().filter(faction -> !faction.getRelations().getEnemies().isEmpty()).collect(Collectors.toList()), random);
+        return getRandomItem(enabledFactions.factionsWithEnemies, random);
+    }
+
+    private static Faction getRandomItem(Faction[] factions, Random random) {
+        if(factions.length == 0){
+            return null;
+        }
+        return factions[random.nextInt(factions.length)];
+    }
+
+    private static final class EnabledFactions {
+        private static final EnabledFactions EMPTY = new EnabledFactions(Collections.emptyMap(), Collections.emptySet());
+
+        private final Map<ResourceLocation, Faction> factions;
+        private final Faction[] factionArray;
+        private final Faction[] factionsWithEnemies;
+
+        private EnabledFactions(Map<ResourceLocation, Faction> data, Set<ResourceLocation> disabledFactions) {
+            Map<ResourceLocation, Faction> enabled = new HashMap<>();
+            List<Faction> withEnemies = new ArrayList<>();
+            data.forEach((resourceLocation, faction) -> {
+                if(!disabledFactions.contains(resourceLocation)){
+                    enabled.put(resourceLocation, faction);
+                    if(!faction.getRelations().getEnemies().isEmpty()){
+                        withEnemies.add(faction);
+                    }
+                }
+            });
+            this.factions = Collections.unmodifiableMap(enabled);
+            this.factionArray = enabled.values().toArray(new Faction[0]);
+            this.factionsWithEnemies = withEnemies.toArray(new Faction[0]);
+        }
     }
 }
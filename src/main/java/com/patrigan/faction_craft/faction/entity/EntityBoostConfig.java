@@ -5,6 +5,7 @@ import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 import com.patrigan.faction_craft.boost.Boost;
 import com.patrigan.faction_craft.boost.Boosts;
+import com.patrigan.faction_craft.boost.LoadedBoosts;
 import com.patrigan.faction_craft.faction.FactionBoostConfig;
 import com.sun.prism.image.CompoundTexture;
 import net.minecraft.nbt.CompoundNBT;
@@ -69,6 +70,10 @@ public class EntityBoostConfig {
         return mandatoryResourceLocations.stream().map(Boosts::getBoost).collect(Collectors.toList());
     }
 
+    public List<Boost> getMandatoryBoosts(LoadedBoosts loadedBoosts){
+        return mandatoryResourceLocations.stream().map(loadedBoosts::getBoost).collect(Collectors.toList());
+    }
+
     public List<ResourceLocation> getWhitelistResourceLocations() {
         return whitelistResourceLocations;
     }
@@ -61,6 +61,13 @@ public class FactionEntityType {
                 compoundNbt.getInt("minimumWave"));
     }
 
+    /**
+     * Stand-in for a stored entity type whose faction or entity type no longer exists.
+     */
+    public static FactionEntityType missing(ResourceLocation entityType, FactionRank rank) {
+        return new FactionEntityType(entityType, new CompoundNBT(), 0, 0, rank, rank, EntityBoostConfig.DEFAULT, 0);
+    }
+
     public ResourceLocation getEntityType() {
         return entityType;
     }
@@ -0,0 +1,178 @@
+package com.patrigan.faction_craft.patrol;
+
+import com.patrigan.faction_craft.faction.Faction;
+import com.patrigan.faction_craft.faction.Factions;
+import net.minecraft.entity.Entity;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.nbt.ListNBT;
+import net.minecraft.nbt.NBTUtil;
+import net.minecraft.util.ResourceLocation;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.server.ServerWorld;
+
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * A group of faction mobs patrolling together.
+ * The leader walks towards the target, and sets the waypoint the other members follow.
+ */
+public class Patrol {
+    private final int id;
+    @Nullable
+    private final Faction faction;
+    @Nullable
+    private UUID leader;
+    // Members with the position they were last seen at
+    private final Map<UUID, BlockPos> members = new LinkedHashMap<>();
+    @Nullable
+    private BlockPos target;
+    @Nullable
+    private BlockPos waypoint;
+
+    public Patrol(int id, @Nullable Faction faction) {
+        this.id = id;
+        this.faction = faction;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    @Nullable
+    public Faction getFaction() {
+        return faction;
+    }
+
+    public boolean isLeader(UUID uuid) {
+        return uuid.equals(this.leader);
+    }
+
+    public void setLeader(UUID leader) {
+        this.leader = leader;
+    }
+
+    public Set<UUID> getMembers() {
+        return members.keySet();
+    }
+
+    public boolean hasMember(UUID uuid) {
+        return this.members.containsKey(uuid);
+    }
+
+    public void addMember(UUID uuid, BlockPos blockPos) {
+        this.members.put(uuid, blockPos.immutable());
+    }
+
+    /**
+     * A patrol that loses its leader keeps following the last waypoint the leader set
+     */
+    public void removeMember(UUID uuid) {
+        this.members.remove(uuid);
+        if (uuid.equals(this.leader)) {
+            this.leader = null;
+        }
+    }
+
+    /**
+     * Updates the positions of the loaded members, and removes the members that are gone:
+     * the ones that aren't in the world while the chunk they were last seen in is loaded.
+     */
+    public void pruneMembers(ServerWorld level) {
+        Iterator<Map.Entry<UUID, BlockPos>> iterator = this.members.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<UUID, BlockPos> member = iterator.next();
+            Entity entity = level.getEntity(member.getKey());
+            if (entity != null && entity.isAlive()) {
+                member.setValue(entity.blockPosition());
+            } else if (entity != null || level.hasChunkAt(member.getValue())) {
+                iterator.remove();
+                if (member.getKey().equals(this.leader)) {
+                    this.leader = null;
+                }
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return this.members.isEmpty();
+    }
+
+    @Nullable
+    public BlockPos getTarget() {
+        return target;
+    }
+
+    /**
+     * Picks a new target up to 500 blocks away
+     */
+    public void findTarget(BlockPos from, Random random) {
+        this.target = from.offset(-500 + random.nextInt(1000), 0, -500 + random.nextInt(1000));
+    }
+
+    /**
+     * @return the waypoint the members follow, or the target if the leader hasn't set one yet
+     */
+    @Nullable
+    public BlockPos getWaypoint() {
+        return waypoint == null ? target : waypoint;
+    }
+
+    public void setWaypoint(BlockPos waypoint) {
+        this.waypoint = waypoint;
+    }
+
+    public CompoundNBT save(CompoundNBT compoundNbt) {
+        compoundNbt.putInt("Id", this.id);
+        if (this.faction != null) {
+            compoundNbt.putString("Faction", this.faction.getName().toString());
+        }
+        if (this.leader != null) {
+            compoundNbt.putUUID("Leader", this.leader);
+        }
+        ListNBT membersNbt = new ListNBT();
+        this.members.forEach((uuid, blockPos) -> {
+            CompoundNBT memberNbt = new CompoundNBT();
+            memberNbt.putUUID("UUID", uuid);
+            memberNbt.put("Pos", NBTUtil.writeBlockPos(blockPos));
+            membersNbt.add(memberNbt);
+        });
+        compoundNbt.put("Members", membersNbt);
+        if (this.target != null) {
+            compoundNbt.put("Target", NBTUtil.writeBlockPos(this.target));
+        }
+        if (this.waypoint != null) {
+            compoundNbt.put("Waypoint", NBTUtil.writeBlockPos(this.waypoint));
+        }
+        return compoundNbt;
+    }
+
+    public static Patrol load(CompoundNBT compoundNbt) {
+        Faction faction = null;
+        if (compoundNbt.contains("Faction")) {
+            ResourceLocation factionName = new ResourceLocation(compoundNbt.getString("Faction"));
+            if (Factions.factionExists(factionName)) {
+                faction = Factions.getFaction(factionName);
+            }
+        }
+        Patrol patrol = new Patrol(compoundNbt.getInt("Id"), faction);
+        if (compoundNbt.hasUUID("Leader")) {
+            patrol.leader = compoundNbt.getUUID("Leader");
+        }
+        ListNBT membersNbt = compoundNbt.getList("Members", 10);
+        for (int i = 0; i < membersNbt.size(); i++) {
+            CompoundNBT memberNbt = membersNbt.getCompound(i);
+            // Members without a known position can't be checked for, leave them out
+            if (memberNbt.hasUUID("UUID") && memberNbt.contains("Pos")) {
+                patrol.members.put(memberNbt.getUUID("UUID"), NBTUtil.readBlockPos(memberNbt.getCompound("Pos")));
+            }
+        }
+        if (compoundNbt.contains("Target")) {
+            patrol.target = NBTUtil.readBlockPos(compoundNbt.getCompound("Target"));
+        }
+        if (compoundNbt.contains("Waypoint")) {
+            patrol.waypoint = NBTUtil.readBlockPos(compoundNbt.getCompound("Waypoint"));
+        }
+        return patrol;
+    }
+}
@@ -0,0 +1,19 @@
+package com.patrigan.faction_craft.patrol;
+
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+import static com.patrigan.faction_craft.FactionCraft.MODID;
+import static com.patrigan.faction_craft.capabilities.patrolmanager.PatrolManagerHelper.getPatrolManagerCapabilityLazy;
+
+@Mod.EventBusSubscriber(modid = MODID)
+public class PatrolEvents {
+
+    @SubscribeEvent
+    public static void onWorldTickEvent(TickEvent.WorldTickEvent event){
+        if(event.phase == TickEvent.Phase.END) {
+            getPatrolManagerCapabilityLazy(event.world).ifPresent(cap -> cap.tick());
+        }
+    }
+}
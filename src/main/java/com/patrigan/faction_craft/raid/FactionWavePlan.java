@@ -0,0 +1,135 @@
+package com.patrigan.faction_craft.raid;
+
+import com.patrigan.faction_craft.boost.Boost;
+import com.patrigan.faction_craft.boost.Boosts;
+import com.patrigan.faction_craft.faction.Faction;
+import com.patrigan.faction_craft.faction.Factions;
+import com.patrigan.faction_craft.faction.entity.FactionEntityType;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.nbt.ListNBT;
+import net.minecraft.nbt.StringNBT;
+import net.minecraft.util.ResourceLocation;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What one faction will spawn in an upcoming wave: its share of the wave strength, one slot per mob, the boosts of every slot and the slot of the wave leader.
+ * The slots stay empty until the faction is planned, see {@link Raid}.
+ */
+public class FactionWavePlan {
+    private final Faction faction;
+    private final int targetStrength;
+    private List<FactionEntityType> slots = null;
+    private List<List<Boost>> slotBoosts = Collections.emptyList();
+    private int leaderSlot = -1;
+
+    public FactionWavePlan(Faction faction, int targetStrength) {
+        this.faction = faction;
+        this.targetStrength = targetStrength;
+    }
+
+    public Faction getFaction() {
+        return faction;
+    }
+
+    public int getTargetStrength() {
+        return targetStrength;
+    }
+
+    public boolean isPlanned() {
+        return slots != null;
+    }
+
+    public List<FactionEntityType> getSlots() {
+        return slots == null ? Collections.emptyList() : slots;
+    }
+
+    /**
+     * @return the boosts planned for each slot
+     */
+    public List<List<Boost>> getSlotBoosts() {
+        return slotBoosts;
+    }
+
+    /**
+     * @return the slot whose mob becomes the banner holder, or -1 if none of the slots can hold a banner
+     */
+    public int getLeaderSlot() {
+        return leaderSlot;
+    }
+
+    public void setPlan(List<FactionEntityType> slots, List<List<Boost>> slotBoosts, int leaderSlot) {
+        this.slots = slots;
+        this.slotBoosts = slotBoosts;
+        this.leaderSlot = leaderSlot;
+    }
+
+    public CompoundNBT save(CompoundNBT compoundNBT) {
+        compoundNBT.putString("Faction", faction.getName().toString());
+        compoundNBT.putInt("TargetStrength", targetStrength);
+        if (slots != null) {
+            ListNBT slotsNbt = new ListNBT();
+            for (int i = 0; i < slots.size(); i++) {
+                FactionEntityType factionEntityType = slots.get(i);
+                CompoundNBT slotNbt = new CompoundNBT();
+                slotNbt.putString("entityType", factionEntityType.getEntityType().toString());
+                slotNbt.putString("rank", factionEntityType.getRank().getName());
+                slotNbt.putInt("ordinal", faction.getEntityTypeOrdinal(factionEntityType));
+                ListNBT boostsNbt = new ListNBT();
+                for (Boost boost : slotBoosts.get(i)) {
+                    ResourceLocation boostName = Boosts.BOOSTS.getKey(boost);
+                    if (boostName != null) {
+                        boostsNbt.add(StringNBT.valueOf(boostName.toString()));
+                    }
+                }
+                slotNbt.put("boosts", boostsNbt);
+                slotsNbt.add(slotNbt);
+            }
+            compoundNBT.put("Slots", slotsNbt);
+            compoundNBT.putInt("LeaderSlot", leaderSlot);
+        }
+        return compoundNBT;
+    }
+
+    /**
+     * @return the loaded plan, or null if its faction or one of its entity types no longer exists
+     */
+    @Nullable
+    public static FactionWavePlan load(CompoundNBT compoundNBT) {
+        ResourceLocation factionName = new ResourceLocation(compoundNBT.getString("Faction"));
+        if (!Factions.factionExists(factionName)) {
+            return null;
+        }
+        Faction faction = Factions.getFaction(factionName);
+        FactionWavePlan plan = new FactionWavePlan(faction, compoundNBT.getInt("TargetStrength"));
+        if (compoundNBT.contains("Slots", 9)) {
+            ListNBT slotsNbt = compoundNBT.getList("Slots", 10);
+            List<FactionEntityType> slots = new ArrayList<>(slotsNbt.size());
+            List<List<Boost>> slotBoosts = new ArrayList<>(slotsNbt.size());
+            for (int i = 0; i < slotsNbt.size(); i++) {
+                CompoundNBT slotNbt = slotsNbt.getCompound(i);
+                FactionEntityType.FactionRank rank = FactionEntityType.FactionRank.byName(slotNbt.getString("rank"), FactionEntityType.FactionRank.SOLDIER);
+                FactionEntityType factionEntityType = faction.getEntityType(new ResourceLocation(slotNbt.getString("entityType")), rank, slotNbt.getInt("ordinal"));
+                if (factionEntityType == null) {
+                    return null;
+                }
+                slots.add(factionEntityType);
+                // Boosts removed by a reload are left out of the plan
+                ListNBT boostsNbt = slotNbt.getList("boosts", 8);
+                List<Boost> boosts = new ArrayList<>(boostsNbt.size());
+                for (int j = 0; j < boostsNbt.size(); j++) {
+                    ResourceLocation boostName = new ResourceLocation(boostsNbt.getString(j));
+                    if (Boosts.boostExists(boostName)) {
+                        boosts.add(Boosts.getBoost(boostName));
+                    }
+                }
+                slotBoosts.add(boosts);
+            }
+            plan.setPlan(slots, slotBoosts, compoundNBT.getInt("LeaderSlot"));
+        }
+        return plan;
+    }
+}
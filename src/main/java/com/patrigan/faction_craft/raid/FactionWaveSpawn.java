@@ -0,0 +1,206 @@
+package com.patrigan.faction_craft.raid;
+
+import com.patrigan.faction_craft.boost.Boost;
+import com.patrigan.faction_craft.faction.Faction;
+import com.patrigan.faction_craft.faction.entity.FactionEntityType;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.MobEntity;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.nbt.ListNBT;
+import net.minecraft.nbt.NBTUtil;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.server.ServerWorld;
+
+import javax.annotation.Nullable;
+
+import java.util.*;
+
+/**
+ * The part of a raid wave one faction still has to spawn.
+ * Raid works through these a few mobs per tick, and finishes the faction's part of the wave once everything is spawned.
+ * Saved with the raid, the mobs spawned before the save are looked up again by UUID when the wave is finished.
+ */
+class FactionWaveSpawn {
+    private final FactionWavePlan plan;
+    private final Faction faction;
+    private final BlockPos spawnBlockPos;
+    private final int waveNumber;
+    private final int targetStrength;
+    private final List<FactionEntityType> slots;
+    private final List<List<Boost>> slotBoosts;
+    private final int leaderSlot;
+    private final MobEntity[] slotEntities;
+    private int nextSlot = 0;
+
+    private final List<MobEntity> entities = new ArrayList<>();
+    private final Set<Entity> entitySet = Collections.newSetFromMap(new IdentityHashMap<>());
+    private int waveStrength = 0;
+
+    // Mobs spawned before the raid was loaded, not looked up yet
+    private final Map<Integer, UUID> loadedSlotEntities = new HashMap<>();
+    private final List<UUID> loadedEntities = new ArrayList<>();
+
+    FactionWaveSpawn(FactionWavePlan plan, BlockPos spawnBlockPos, int waveNumber) {
+        this.plan = plan;
+        this.faction = plan.getFaction();
+        this.spawnBlockPos = spawnBlockPos;
+        this.waveNumber = waveNumber;
+        this.targetStrength = plan.getTargetStrength();
+        this.slots = plan.getSlots();
+        this.slotBoosts = plan.getSlotBoosts();
+        this.leaderSlot = plan.getLeaderSlot();
+        this.slotEntities = new MobEntity[this.slots.size()];
+    }
+
+    public Faction getFaction() {
+        return faction;
+    }
+
+    public BlockPos getSpawnBlockPos() {
+        return spawnBlockPos;
+    }
+
+    public int getWaveNumber() {
+        return waveNumber;
+    }
+
+    public int getTargetStrength() {
+        return targetStrength;
+    }
+
+    public boolean hasPendingSlots() {
+        return this.nextSlot < this.slots.size();
+    }
+
+    public int getNextSlot() {
+        return nextSlot;
+    }
+
+    public FactionEntityType pollSlot() {
+        return this.slots.get(this.nextSlot++);
+    }
+
+    public int getSlotCount() {
+        return slotEntities.length;
+    }
+
+    /**
+     * @return the mob spawned for the slot, or null if it wasn't spawned
+     */
+    @Nullable
+    public MobEntity getSlotEntity(int slot) {
+        return slotEntities[slot];
+    }
+
+    public void setSlotEntity(int slot, MobEntity mobEntity) {
+        this.slotEntities[slot] = mobEntity;
+    }
+
+    /**
+     * @return the boosts planned for the slots
+     */
+    public List<List<Boost>> getSlotBoosts() {
+        return slotBoosts;
+    }
+
+    /**
+     * @return the mob spawned for the leader slot, or null if it wasn't spawned
+     */
+    @Nullable
+    public MobEntity getLeader() {
+        return leaderSlot < 0 ? null : slotEntities[leaderSlot];
+    }
+
+    public List<MobEntity> getEntities() {
+        return entities;
+    }
+
+    public boolean containsEntity(Entity entity) {
+        return this.entitySet.contains(entity);
+    }
+
+    public void addEntity(MobEntity mobEntity) {
+        if (this.entitySet.add(mobEntity)) {
+            this.entities.add(mobEntity);
+        }
+    }
+
+    public int getWaveStrength() {
+        return waveStrength;
+    }
+
+    public void addWaveStrength(int strength) {
+        this.waveStrength += strength;
+    }
+
+    /**
+     * Looks up the mobs that were spawned before the raid was loaded
+     */
+    public void resolveLoadedEntities(ServerWorld level) {
+        this.loadedSlotEntities.forEach((slot, uuid) -> {
+            Entity entity = level.getEntity(uuid);
+            if (entity instanceof MobEntity && this.slotEntities[slot] == null) {
+                this.slotEntities[slot] = (MobEntity) entity;
+            }
+        });
+        this.loadedSlotEntities.clear();
+        for (UUID uuid : this.loadedEntities) {
+            Entity entity = level.getEntity(uuid);
+            if (entity instanceof MobEntity) {
+                this.addEntity((MobEntity) entity);
+            }
+        }
+        this.loadedEntities.clear();
+    }
+
+    public CompoundNBT save(CompoundNBT compoundNBT) {
+        compoundNBT.put("Plan", this.plan.save(new CompoundNBT()));
+        compoundNBT.put("SpawnPos", NBTUtil.writeBlockPos(this.spawnBlockPos));
+        compoundNBT.putInt("WaveNumber", this.waveNumber);
+        compoundNBT.putInt("NextSlot", this.nextSlot);
+        compoundNBT.putInt("WaveStrength", this.waveStrength);
+        ListNBT slotEntitiesNbt = new ListNBT();
+        for (int slot = 0; slot < this.slotEntities.length; slot++) {
+            UUID uuid = this.slotEntities[slot] != null ? this.slotEntities[slot].getUUID() : this.loadedSlotEntities.get(slot);
+            if (uuid != null) {
+                CompoundNBT slotNbt = new CompoundNBT();
+                slotNbt.putInt("Slot", slot);
+                slotNbt.putUUID("UUID", uuid);
+                slotEntitiesNbt.add(slotNbt);
+            }
+        }
+        compoundNBT.put("SlotEntities", slotEntitiesNbt);
+        ListNBT entitiesNbt = new ListNBT();
+        this.entities.forEach(mobEntity -> entitiesNbt.add(NBTUtil.createUUID(mobEntity.getUUID())));
+        this.loadedEntities.forEach(uuid -> entitiesNbt.add(NBTUtil.createUUID(uuid)));
+        compoundNBT.put("Entities", entitiesNbt);
+        return compoundNBT;
+    }
+
+    /**
+     * @return the loaded wave spawn, or null if its plan can no longer be loaded
+     */
+    @Nullable
+    public static FactionWaveSpawn load(CompoundNBT compoundNBT) {
+        FactionWavePlan plan = FactionWavePlan.load(compoundNBT.getCompound("Plan"));
+        if (plan == null || !plan.isPlanned()) {
+            return null;
+        }
+        FactionWaveSpawn waveSpawn = new FactionWaveSpawn(plan, NBTUtil.readBlockPos(compoundNBT.getCompound("SpawnPos")), compoundNBT.getInt("WaveNumber"));
+        waveSpawn.nextSlot = Math.min(compoundNBT.getInt("NextSlot"), waveSpawn.slots.size());
+        waveSpawn.waveStrength = compoundNBT.getInt("WaveStrength");
+        ListNBT slotEntitiesNbt = compoundNBT.getList("SlotEntities", 10);
+        for (int i = 0; i < slotEntitiesNbt.size(); i++) {
+            CompoundNBT slotNbt = slotEntitiesNbt.getCompound(i);
+            int slot = slotNbt.getInt("Slot");
+            if (slot >= 0 && slot < waveSpawn.slotEntities.length && slotNbt.hasUUID("UUID")) {
+                waveSpawn.loadedSlotEntities.put(slot, slotNbt.getUUID("UUID"));
+            }
+        }
+        ListNBT entitiesNbt = compoundNBT.getList("Entities", 11);
+        for (int i = 0; i < entitiesNbt.size(); i++) {
+            waveSpawn.loadedEntities.add(NBTUtil.loadUUID(entitiesNbt.get(i)));
+        }
+        return waveSpawn;
+    }
+}
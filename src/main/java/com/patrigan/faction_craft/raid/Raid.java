@@ -2,13 +2,16 @@ package com.patrigan.faction_craft.raid;
 
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
-import com.mojang.datafixers.util.Pair;
+import com.patrigan.faction_craft.FactionCraft;
+import com.patrigan.faction_craft.boost.Boost;
+import com.patrigan.faction_craft.boost.Boosts;
 import com.patrigan.faction_craft.capabilities.factionentity.FactionEntity;
 import com.patrigan.faction_craft.capabilities.factionentity.FactionEntityHelper;
 import com.patrigan.faction_craft.capabilities.factionentity.IFactionEntity;
 import com.patrigan.faction_craft.capabilities.raider.IRaider;
 import com.patrigan.faction_craft.capabilities.raider.RaiderHelper;
 import com.patrigan.faction_craft.capabilities.raidmanager.IRaidManager;
+import com.patrigan.faction_craft.config.ConfigSnapshot;
 import com.patrigan.faction_craft.event.FactionRaidEvent;
 import com.patrigan.faction_craft.faction.Faction;
 import com.patrigan.faction_craft.faction.FactionBoostHelper;
@@ -17,6 +20,9 @@ import com.patrigan.faction_craft.faction.entity.FactionEntityType;
 import com.patrigan.faction_craft.raid.target.RaidTarget;
 import com.patrigan.faction_craft.raid.target.RaidTargetHelper;
 import com.patrigan.faction_craft.util.GeneralUtils;
+import com.patrigan.faction_craft.util.WorkerExecutor;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
 import net.minecraft.advancements.CriteriaTriggers;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.LivingEntity;
@@ -45,19 +51,24 @@ import net.minecraft.world.Difficulty;
 import net.minecraft.world.gen.Heightmap;
 import net.minecraft.world.server.ServerBossInfo;
 import net.minecraft.world.server.ServerWorld;
+import net.minecraft.world.server.TicketType;
 import net.minecraftforge.common.util.LazyOptional;
 
 import javax.annotation.Nullable;
 import java.util.*;
-import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import static com.patrigan.faction_craft.capabilities.raider.RaiderProvider.RAIDER_CAPABILITY;
 import static com.patrigan.faction_craft.capabilities.raidmanager.RaidManagerHelper.getRaidManagerCapability;
-import static com.patrigan.faction_craft.config.FactionCraftConfig.*;
-import static com.patrigan.faction_craft.util.GeneralUtils.getRandomEntry;
 
 public class Raid {
+    private static final TicketType<Integer> SPAWN_AREA_TICKET = TicketType.create(FactionCraft.MODID + ":raid_spawn_area", Integer::compareTo);
+    // Keeps the chunk of the spawn area entity ticking, and its neighbours loaded for the spawn checks
+    private static final int SPAWN_AREA_TICKET_DISTANCE = 2;
+    // How long a wave waits for its spawn areas to load before the raid gives up, new areas are picked every SPAWN_AREA_RETRY_TICKS
+    private static final int MAX_SPAWN_WAIT_TICKS = 600;
+    private static final int SPAWN_AREA_RETRY_TICKS = 100;
+
     private final int id;
     private final List<Faction> factions;
     private final ServerWorld level;
@@ -66,13 +77,39 @@ public class Raid {
 
     private final ServerBossInfo raidEvent = new ServerBossInfo(new StringTextComponent(""), BossInfo.Color.RED, BossInfo.Overlay.NOTCHED_10);
     private float totalHealth;
+    // Boss bar changes are collected here and sent at most once per tick, see flushBossbar
+    private boolean bossbarDirty;
+    private float bossbarPercent;
+    private float sentBossbarPercent = -1.0F;
+    private ITextComponent bossbarName;
+    private ITextComponent raidEventName;
+    private ITextComponent raidEventNameDefeat;
+    private ITextComponent raidEventNameVictory;
+    private final ITextComponent[] raidersRemainingNames = new ITextComponent[2];
 
     private int numGroups;
     private int groupsSpawned = 0;
     private Queue<BlockPos> waveSpawnPos = new LinkedList<>();
+    private final Deque<FactionWaveSpawn> waveSpawns = new ArrayDeque<>();
+    @Nullable
+    private WavePlan nextWavePlan;
+    // Seeds the random of every wave plan computed on the worker threads, so they don't touch the level's or each other's
+    private final Random planningRandom;
+    private int wavePlanRequest = 0;
+    private boolean wavePlanPending = false;
+    private final List<BlockPos> spawnAreas = new ArrayList<>();
+    private int spawnWaitTicks = 0;
+    private final LongSet spawnAreaTickets = new LongOpenHashSet();
+    private final RaidFlowField flowField = new RaidFlowField();
+    private final RaidHomeTargets homeTargets = new RaidHomeTargets(this::isRaider);
 
     private final Map<Integer, MobEntity> groupToLeaderMap = Maps.newHashMap();
     private final Map<Integer, Set<MobEntity>> groupRaiderMap = Maps.newHashMap();
+    // Running totals over groupRaiderMap, so the per tick checks don't have to walk every raider
+    private final Map<MobEntity, Float> raiderHealth = Maps.newHashMap();
+    private final Set<MobEntity> healthChangedRaiders = Sets.newHashSet();
+    private int totalRaidersAlive;
+    private float healthOfLivingRaiders;
 
     private final Set<UUID> heroesOfTheVillage = Sets.newHashSet();
 
@@ -91,11 +128,12 @@ public class Raid {
             this.factions.add(Factions.getDefaultFaction());
         }
         this.level = level;
+        this.planningRandom = new Random(level.random.nextLong());
         this.raidTarget = raidTarget;
         this.numGroups = this.getNumGroups(level.getDifficulty(), raidTarget);
         this.active = true;
-        this.raidEvent.setName(getRaidEventName(raidTarget));
-        this.raidEvent.setPercent(0.0F);
+        this.setBossbarName(getRaidEventName(raidTarget));
+        this.setBossbarPercent(0.0F);
         this.status = Status.ONGOING;
     }
 
@@ -103,6 +141,7 @@ public class Raid {
 
     public Raid(ServerWorld level, CompoundNBT compoundNBT) {
         this.level = level;
+        this.planningRandom = new Random(level.random.nextLong());
         ListNBT factionListnbt = compoundNBT.getList("Factions", 10);
         factions = new ArrayList<>();
         for(int i = 0; i < factionListnbt.size(); ++i) {
@@ -117,7 +156,7 @@ public class Raid {
             this.factions.add(Factions.getDefaultFaction());
         }
         this.raidTarget = RaidTargetHelper.load(level, compoundNBT.getCompound("RaidTarget"));
-        this.raidEvent.setName(getRaidEventName(this.raidTarget));
+        this.setBossbarName(getRaidEventName(this.raidTarget));
         this.id = compoundNBT.getInt("Id");
         this.started = compoundNBT.getBoolean("Started");
         this.active = compoundNBT.getBoolean("Active");
@@ -129,6 +168,17 @@ public class Raid {
         this.totalHealth = compoundNBT.getFloat("TotalHealth");
         this.numGroups = compoundNBT.getInt("NumGroups");
         this.status = Status.getByName(compoundNBT.getString("Status"));
+        if (compoundNBT.contains("NextWavePlan", 10)) {
+            this.nextWavePlan = WavePlan.load(compoundNBT.getCompound("NextWavePlan"));
+        }
+        // The rest of a wave that was still spawning when the raid was saved
+        ListNBT waveSpawnsNbt = compoundNBT.getList("WaveSpawns", 10);
+        for(int i = 0; i < waveSpawnsNbt.size(); ++i) {
+            FactionWaveSpawn waveSpawn = FactionWaveSpawn.load(waveSpawnsNbt.getCompound(i));
+            if (waveSpawn != null) {
+                this.waveSpawns.add(waveSpawn);
+            }
+        }
         this.heroesOfTheVillage.clear();
         if (compoundNBT.contains("HeroesOfTheVillage", 9)) {
             ListNBT listnbt = compoundNBT.getList("HeroesOfTheVillage", 11);
@@ -146,18 +196,36 @@ public class Raid {
         return this.raidTarget.getTargetBlockPos();
     }
 
+    /**
+     * The shared route of the raiders towards the center
+     */
+    public RaidFlowField getFlowField() {
+        return flowField;
+    }
+
+    public RaidHomeTargets getHomeTargets() {
+        return homeTargets;
+    }
+
     public Collection<Faction> getFactions() {
         return factions;
     }
 
     public void addFactions(Collection<Faction> factions){
         this.factions.addAll(factions);
+        this.invalidateWavePlan();
     }
     public void addFaction(Faction faction){
         this.factions.add(faction);
+        this.invalidateWavePlan();
     }
 
     public void tick() {
+        this.tickRaid();
+        this.flushBossbar();
+    }
+
+    private void tickRaid() {
         if (!this.isStopped()) {
             if (this.status == Status.ONGOING) {
                 boolean flag = this.active;
@@ -170,18 +238,22 @@ public class Raid {
                     this.raidEvent.setVisible(this.active);
                 }
                 if (!this.active) {
+                    this.releaseSpawnAreas();
                     return;
                 }
 
+                this.flushHealthChanges();
                 raidTarget.updateTargetBlockPos(level);
+                this.flowField.tick(this.level, this.getCenter());
 
-                if (raidTarget.checkLossCondition(this, level)) {
+                if (!this.isSpawningWave() && raidTarget.checkLossCondition(this, level)) {
                     if (this.groupsSpawned > 0) {
                         FactionRaidEvent.Defeat event = new FactionRaidEvent.Defeat(this);
                         net.minecraftforge.common.MinecraftForge.EVENT_BUS.post(event);
                         this.status = Status.LOSS;
+                        this.releaseSpawnAreas();
                         this.playSound(raidTarget.getTargetBlockPos(), factions.get(0).getRaidConfig().getDefeatSoundEvent());
-                        this.raidEvent.setName(getRaidEventNameDefeat(raidTarget));
+                        this.setBossbarName(getRaidEventNameDefeat(raidTarget));
                     } else {
                         this.stop();
                     }
@@ -195,7 +267,7 @@ public class Raid {
 
 
                 int i = this.getTotalRaidersAlive();
-                if (i == 0 && this.hasMoreWaves()) {
+                if (i == 0 && this.hasMoreWaves() && !this.isSpawningWave()) {
                     if(raidCooldownTick()){
                         return;
                     }
@@ -204,14 +276,10 @@ public class Raid {
                 if (this.ticksActive % 20L == 0L) {
                     this.updatePlayers();
                     this.updateRaiders();
-                    if (i > 0) {
-                        if (i <= 2) {
-                            this.raidEvent.setName(getRaidEventName(raidTarget).copy().append(" - ").append(new TranslationTextComponent("event.minecraft.raid.raiders_remaining", i)));
-                        } else {
-                            this.raidEvent.setName(getRaidEventName(raidTarget));
-                        }
+                    if (i > 0 && i <= 2) {
+                        this.setBossbarName(getRaidersRemainingName(i));
                     } else {
-                        this.raidEvent.setName(getRaidEventName(raidTarget));
+                        this.setBossbarName(getRaidEventName(raidTarget));
                     }
                 }
 
@@ -219,6 +287,10 @@ public class Raid {
                 int k = 0;
 
                 //Something with waveSpawnPos
+                if (this.shouldSpawnGroup() && this.spawnAreas.isEmpty()) {
+                    // The first wave, or the first after a load, had no cooldown to preload its spawn areas in
+                    this.preloadSpawnAreas();
+                }
                 while(this.shouldSpawnGroup()) {
                     for (int j = this.waveSpawnPos.size(); j < factions.size(); j++) {
                         BlockPos randomSpawnPos = this.findRandomSpawnPos(k, 20);
@@ -239,20 +311,28 @@ public class Raid {
                     }
 
                     if (k > 3) {
-                        this.stop();
+                        // The spawn areas may still be loading, wait for them and try again next tick
+                        ++this.spawnWaitTicks;
+                        if (this.spawnWaitTicks >= MAX_SPAWN_WAIT_TICKS) {
+                            this.stop();
+                        } else if (this.spawnWaitTicks % SPAWN_AREA_RETRY_TICKS == 0) {
+                            this.preloadSpawnAreas();
+                        }
                         break;
                     }
                 }
+                this.tickWaveSpawns();
 
-                if (this.isStarted() && !this.hasMoreWaves() && i == 0) {
+                if (this.isStarted() && !this.hasMoreWaves() && i == 0 && !this.isSpawningWave()) {
                     if (this.postRaidTicks < 40) {
                         ++this.postRaidTicks;
                     } else {
                         this.status = Status.VICTORY;
+                        this.releaseSpawnAreas();
                         FactionRaidEvent.Victory event = new FactionRaidEvent.Victory(this);
                         net.minecraftforge.common.MinecraftForge.EVENT_BUS.post(event);
                         this.playSound(raidTarget.getTargetBlockPos(), factions.get(0).getRaidConfig().getVictorySoundEvent());
-                        this.raidEvent.setName(getRaidEventNameVictory(raidTarget));
+                        this.setBossbarName(getRaidEventNameVictory(raidTarget));
 
                         for(UUID uuid : this.heroesOfTheVillage) {
                             Entity entity = this.level.getEntity(uuid);
@@ -279,10 +359,10 @@ public class Raid {
                     this.updatePlayers();
                     this.raidEvent.setVisible(true);
                     if (this.isVictory()) {
-                        this.raidEvent.setPercent(0.0F);
-                        this.raidEvent.setName(getRaidEventNameVictory(raidTarget));
+                        this.setBossbarPercent(0.0F);
+                        this.setBossbarName(getRaidEventNameVictory(raidTarget));
                     } else {
-                        this.raidEvent.setName(getRaidEventNameDefeat(raidTarget));
+                        this.setBossbarName(getRaidEventNameDefeat(raidTarget));
                     }
                 }
             }
@@ -310,10 +390,15 @@ public class Raid {
         if (this.raidCooldownTicks <= 0) {
             if (this.raidCooldownTicks == 0 && this.groupsSpawned > 0) {
                 this.raidCooldownTicks = 300;
-                this.raidEvent.setName(getRaidEventName(raidTarget));
+                this.preloadSpawnAreas();
+                this.setBossbarName(getRaidEventName(raidTarget));
                 return true;
             }
         } else {
+            if (this.spawnAreas.isEmpty()) {
+                // Raids loaded during the cooldown lost their tickets
+                this.preloadSpawnAreas();
+            }
             boolean flag1 = this.waveSpawnPos.size() >= factions.size();
             boolean flag2 = !flag1 && this.raidCooldownTicks % 5 == 0;
             if (flag1 && !this.level.getChunkSource().isEntityTickingChunk(new ChunkPos(this.waveSpawnPos.peek()))) {
@@ -332,88 +417,216 @@ public class Raid {
                 Optional<BlockPos> validSpawnPos = this.getValidSpawnPos(j);
                 if(validSpawnPos.isPresent()) {
                     this.waveSpawnPos.add(validSpawnPos.get());
+                    this.addSpawnAreaTicket(new ChunkPos(validSpawnPos.get()));
                 }
             }
 
             if (this.raidCooldownTicks == 300 || this.raidCooldownTicks % 20 == 0) {
                 this.updatePlayers();
             }
+            this.planNextWave();
+            this.fillSpawnPositionCache();
 
             --this.raidCooldownTicks;
-            this.raidEvent.setPercent(MathHelper.clamp((float)(300 - this.raidCooldownTicks) / 300.0F, 0.0F, 1.0F));
+            this.setBossbarPercent(MathHelper.clamp((float)(300 - this.raidCooldownTicks) / 300.0F, 0.0F, 1.0F));
         }
         return false;
     }
 
     private boolean shouldSpawnGroup() {
-        return this.raidCooldownTicks == 0 && (this.groupsSpawned < this.numGroups) && this.getTotalRaidersAlive() == 0;
+        return this.raidCooldownTicks == 0 && (this.groupsSpawned < this.numGroups) && this.getTotalRaidersAlive() == 0 && !this.isSpawningWave();
+    }
+
+    /**
+     * @return whether the current wave is still being spawned over the coming ticks
+     */
+    public boolean isSpawningWave() {
+        return !this.waveSpawns.isEmpty();
     }
 
     private void spawnGroup() {
         int waveNumber = this.groupsSpawned + 1;
         this.totalHealth = 0.0F;
 
-        double waveMultiplier = BASE_WAVE_MULTIPLIER.get() + (this.groupsSpawned * MULTIPLIER_INCREASE_PER_WAVE.get());
-        double spreadMultiplier = ((level.random.nextFloat()*2)-1)*WAVE_TARGET_STRENGTH_SPREAD.get();
-        double difficultyMultiplier = getDifficultyMultiplier(level.getDifficulty());
-        double badOmenMultiplier = MULTIPLIER_INCREASE_PER_BAD_OMEN.get() * (factions.size()-1);
-        double totalMultiplier = waveMultiplier + spreadMultiplier + difficultyMultiplier + badOmenMultiplier;
-        int targetStrength = (int) Math.floor(raidTarget.getTargetStrength() * totalMultiplier);
-        Map<Faction, Integer> factionFractions = determineFactionFractions(targetStrength);
-        factionFractions.entrySet().forEach(entry -> spawnGroupForFaction(this.waveSpawnPos.poll(), waveNumber, entry.getValue(), entry.getKey()));
+        WavePlanner wavePlanner = this.createWavePlanner(waveNumber);
+        WavePlan wavePlan = this.nextWavePlan;
+        if (wavePlan == null || wavePlan.getWaveNumber() != waveNumber) {
+            wavePlan = wavePlanner.createWavePlan(this.level.random);
+        }
+        this.invalidateWavePlan();
+        SpawnPositionCache spawnPositionCache = getRaidManagerCapability(this.level).getSpawnPositionCache();
+        for (FactionWavePlan factionPlan : wavePlan.getFactionPlans()) {
+            if (!factionPlan.isPlanned()) {
+                wavePlanner.planFaction(factionPlan, this.level.random);
+            }
+            BlockPos spawnBlockPos = this.waveSpawnPos.poll();
+            spawnPositionCache.markUsed(this.getCenter(), spawnBlockPos);
+            this.waveSpawns.add(new FactionWaveSpawn(factionPlan, spawnBlockPos, waveNumber));
+        }
 
         this.waveSpawnPos.clear();
+        this.spawnWaitTicks = 0;
         ++this.groupsSpawned;
         this.updateBossbar();
     }
 
-    private Map<Faction, Integer> determineFactionFractions(int targetStrength) {
-        Map<Faction, Integer> factionFractions = new HashMap<>();
-        int perFactionStrength = (int) Math.floor(targetStrength / factions.size());
-        factions.forEach(faction -> factionFractions.merge(faction, perFactionStrength, Integer::sum));
-        return factionFractions;
+    /**
+     * Has the next wave planned on a worker thread during the cooldown.
+     * Plans loaded from a save, or started here because the workers were busy, are finished on this thread one faction per tick.
+     */
+    private void planNextWave() {
+        int waveNumber = this.groupsSpawned + 1;
+        if (this.nextWavePlan != null && this.nextWavePlan.getWaveNumber() == waveNumber) {
+            FactionWavePlan factionPlan = this.nextWavePlan.getNextUnplanned();
+            if (factionPlan != null) {
+                this.createWavePlanner(waveNumber).planFaction(factionPlan, this.level.random);
+            }
+            return;
+        }
+        if (this.wavePlanPending) {
+            return;
+        }
+        WavePlanner wavePlanner = this.createWavePlanner(waveNumber);
+        // Every task gets a random of its own, a stale task may still be running next to this one
+        Random random = new Random(this.planningRandom.nextLong());
+        int request = ++this.wavePlanRequest;
+        this.wavePlanPending = WorkerExecutor.submit(() -> wavePlanner.plan(random), getRaidManagerCapability(this.level)::executeOnMainThread, wavePlan -> this.onWavePlanned(request, wavePlan));
+        if (!this.wavePlanPending) {
+            this.nextWavePlan = wavePlanner.createWavePlan(this.level.random);
+        }
+    }
+
+    private void onWavePlanned(int request, @Nullable WavePlan wavePlan) {
+        if (request != this.wavePlanRequest || this.isStopped()) {
+            return;
+        }
+        this.wavePlanPending = false;
+        int waveNumber = this.groupsSpawned + 1;
+        if (wavePlan == null) {
+            // Planning failed on the worker, plan the wave on this thread instead
+            this.nextWavePlan = this.createWavePlanner(waveNumber).createWavePlan(this.level.random);
+        } else if (wavePlan.getWaveNumber() == waveNumber) {
+            this.nextWavePlan = wavePlan;
+        }
+    }
+
+    /**
+     * Drops the next wave plan, and the result of a plan still being computed.
+     */
+    private void invalidateWavePlan() {
+        this.nextWavePlan = null;
+        this.wavePlanPending = false;
+        ++this.wavePlanRequest;
     }
 
-    private void spawnGroupForFaction(BlockPos spawnBlockPos, int waveNumber, int targetStrength, Faction faction) {
-        int mobsFraction = (int) Math.floor(targetStrength * faction.getRaidConfig().getMobsFraction());
+    private WavePlanner createWavePlanner(int waveNumber) {
+        return new WavePlanner(waveNumber, this.factions, this.raidTarget.getTargetStrength(), getDifficultyMultiplier(this.level.getDifficulty()), ConfigSnapshot.get(), Boosts.getLoadedBoosts());
+    }
 
-        int waveStrength = 0;
-        Map<FactionEntityType, Integer> waveFactionEntities = determineMobs(mobsFraction, waveNumber, faction);
-        List<MobEntity> entities = new ArrayList<>();
-        // Collect Entities
-        for (Map.Entry<FactionEntityType, Integer> entry : waveFactionEntities.entrySet()) {
-            FactionEntityType factionEntityType = entry.getKey();
-            Integer amount = entry.getValue();
-            for (int i = 0; i <amount; i++) {
-                Entity entity = factionEntityType.createEntity(level, faction, spawnBlockPos, false, SpawnReason.PATROL);
+    /**
+     * Spawns the queued mobs of the current wave, up to the configured amount per tick.
+     * Each faction's part of the wave gets its boosts and banner holder once all of its mobs are in the world.
+     */
+    private void tickWaveSpawns() {
+        int budget = ConfigSnapshot.get().raidMobsSpawnedPerTick;
+        while (!this.waveSpawns.isEmpty()) {
+            FactionWaveSpawn waveSpawn = this.waveSpawns.peek();
+            if (waveSpawn.hasPendingSlots()) {
+                if (budget <= 0) {
+                    return;
+                }
+                --budget;
+                int slot = waveSpawn.getNextSlot();
+                FactionEntityType factionEntityType = waveSpawn.pollSlot();
+                Entity entity = factionEntityType.createEntity(level, waveSpawn.getFaction(), waveSpawn.getSpawnBlockPos(), false, SpawnReason.PATROL);
                 if(entity instanceof MobEntity) {
-                    MobEntity mobEntity = (MobEntity) entity;
                     //Add to Raid
-                    addToRaid(spawnBlockPos, waveNumber, faction, entities, factionEntityType, mobEntity);
-                    waveStrength += factionEntityType.getStrength();
+                    addToRaid(waveSpawn, factionEntityType, (MobEntity) entity);
+                    waveSpawn.addWaveStrength(factionEntityType.getStrength());
+                    waveSpawn.setSlotEntity(slot, (MobEntity) entity);
+                }
+            } else {
+                this.waveSpawns.poll();
+                this.finishGroupForFaction(waveSpawn);
+                if (this.waveSpawns.isEmpty()) {
+                    this.releaseSpawnAreas();
                 }
-
             }
         }
+    }
+
+    /**
+     * Picks an area on the outer spawn ring for every faction, plus a spare, and has their chunks loaded during the cooldown.
+     * The chunks load in the background, so by the time the wave spawns the spawn checks around these areas can pass.
+     */
+    private void preloadSpawnAreas() {
+        this.releaseSpawnAreas();
+        BlockPos center = this.getCenter();
+        for (int i = 0; i <= this.factions.size(); i++) {
+            float f = this.level.random.nextFloat() * ((float)Math.PI * 2F);
+            BlockPos spawnArea = new BlockPos(center.getX() + MathHelper.floor(MathHelper.cos(f) * 64.0F), center.getY(), center.getZ() + MathHelper.floor(MathHelper.sin(f) * 64.0F));
+            this.spawnAreas.add(spawnArea);
+            this.addSpawnAreaTicket(new ChunkPos(spawnArea));
+        }
+        // Spawn positions found so far keep their chunks loaded
+        this.waveSpawnPos.forEach(blockPos -> this.addSpawnAreaTicket(new ChunkPos(blockPos)));
+    }
+
+    private void addSpawnAreaTicket(ChunkPos chunkPos) {
+        if (this.spawnAreaTickets.add(chunkPos.toLong())) {
+            this.level.getChunkSource().addRegionTicket(SPAWN_AREA_TICKET, chunkPos, SPAWN_AREA_TICKET_DISTANCE, this.id);
+        }
+    }
+
+    private void releaseSpawnAreas() {
+        for (long chunk : this.spawnAreaTickets) {
+            this.level.getChunkSource().removeRegionTicket(SPAWN_AREA_TICKET, new ChunkPos(chunk), SPAWN_AREA_TICKET_DISTANCE, this.id);
+        }
+        this.spawnAreaTickets.clear();
+        this.spawnAreas.clear();
+    }
+
+    private void finishGroupForFaction(FactionWaveSpawn waveSpawn) {
+        waveSpawn.resolveLoadedEntities(this.level);
+        Faction faction = waveSpawn.getFaction();
+        BlockPos spawnBlockPos = waveSpawn.getSpawnBlockPos();
+        int waveNumber = waveSpawn.getWaveNumber();
+        List<MobEntity> entities = waveSpawn.getEntities();
+        // The first mobs of the wave have been out for a few ticks already
+        entities.removeIf(mobEntity -> !mobEntity.isAlive());
         // Apply Boosts
-        FactionBoostHelper.applyBoosts(targetStrength-waveStrength, entities, faction, this.level);
-
-        List<Entity> newEntities = entities.stream().flatMap(mobEntity -> mobEntity.getRootVehicle().getSelfAndPassengers()).filter(entity -> !entities.contains(entity)).collect(Collectors.toList());
-        newEntities.forEach(entity -> {
-            if(entity instanceof MobEntity) {
-                MobEntity mobEntity = (MobEntity) entity;
-                IFactionEntity entityCapability = FactionEntityHelper.getFactionEntityCapability(mobEntity);
-                if(entityCapability.getFaction() != null && entityCapability.getFactionEntityType() != null) {
-                    this.joinRaid(waveNumber, mobEntity, spawnBlockPos, false);
-                    entities.add(mobEntity);
-                    entityCapability.getFaction().getBoostConfig().getMandatoryBoosts().forEach(boost -> boost.apply(mobEntity));
-                    entityCapability.getFactionEntityType().getBoostConfig().getMandatoryBoosts().forEach(boost -> boost.apply(mobEntity));
-                }
+        List<List<Boost>> slotBoosts = waveSpawn.getSlotBoosts();
+        for (int slot = 0; slot < waveSpawn.getSlotCount(); slot++) {
+            MobEntity slotEntity = waveSpawn.getSlotEntity(slot);
+            if (slotEntity != null && slotEntity.isAlive()) {
+                FactionBoostHelper.applyPlannedBoosts(slotEntity, slotBoosts.get(slot));
             }
-        });
+        }
+        // Boosts can change max health without going through the heal event
+        entities.forEach(this::refreshHealth);
+
+        // Boosts can add mounts and riders, only the entities that were already there are walked
+        int boostedEntities = entities.size();
+        for (int i = 0; i < boostedEntities; i++) {
+            entities.get(i).getRootVehicle().getSelfAndPassengers().forEach(entity -> {
+                if(entity instanceof MobEntity && !waveSpawn.containsEntity(entity)) {
+                    MobEntity mobEntity = (MobEntity) entity;
+                    IFactionEntity entityCapability = FactionEntityHelper.getFactionEntityCapability(mobEntity);
+                    if(entityCapability.getFaction() != null && entityCapability.getFactionEntityType() != null) {
+                        this.joinRaid(waveNumber, mobEntity, spawnBlockPos, false);
+                        waveSpawn.addEntity(mobEntity);
+                        entityCapability.getFaction().getBoostConfig().getMandatoryBoosts().forEach(boost -> boost.apply(mobEntity));
+                        entityCapability.getFactionEntityType().getBoostConfig().getMandatoryBoosts().forEach(boost -> boost.apply(mobEntity));
+                    }
+                }
+            });
+        }
 
-        List<MobEntity> captainEntities = entities.stream().filter(mobEntity -> FactionEntityHelper.getFactionEntityCapability(mobEntity).getFactionEntityType().canBeBannerHolder()).collect(Collectors.toList());
-        MobEntity randomItem = GeneralUtils.getRandomItem(captainEntities, level.getRandom());
+        MobEntity randomItem = waveSpawn.getLeader();
+        if(randomItem == null || !randomItem.isAlive()) {
+            List<MobEntity> captainEntities = entities.stream().filter(mobEntity -> FactionEntityHelper.getFactionEntityCapability(mobEntity).getFactionEntityType().canBeBannerHolder()).collect(Collectors.toList());
+            randomItem = GeneralUtils.getRandomItem(captainEntities, level.getRandom());
+        }
         if(randomItem != null) {
             faction.makeBannerHolder(randomItem);
             IRaider raiderCapability = RaiderHelper.getRaiderCapability(randomItem);
@@ -422,13 +635,14 @@ public class Raid {
         this.playSound(spawnBlockPos, factions.get(0).getRaidConfig().getWaveSoundEvent());
     }
 
-    private void addToRaid(BlockPos spawnBlockPos, int waveNumber, Faction faction, List<MobEntity> entities, FactionEntityType factionEntityType, MobEntity baseEntity) {
+    private void addToRaid(FactionWaveSpawn waveSpawn, FactionEntityType factionEntityType, MobEntity baseEntity) {
+        Faction faction = waveSpawn.getFaction();
         baseEntity.getRootVehicle().getSelfAndPassengers().forEach(entity -> {
                 if(entity instanceof MobEntity) {
                     MobEntity mobEntity = (MobEntity) entity;
                     if(faction.equals(FactionEntityHelper.getFactionEntityCapability(mobEntity).getFaction())) {
-                        this.joinRaid(waveNumber, mobEntity, spawnBlockPos, false);
-                        entities.add(mobEntity);
+                        this.joinRaid(waveSpawn.getWaveNumber(), mobEntity, waveSpawn.getSpawnBlockPos(), false);
+                        waveSpawn.addEntity(mobEntity);
                         faction.getBoostConfig().getMandatoryBoosts().forEach(boost -> boost.apply(mobEntity));
                         factionEntityType.getBoostConfig().getMandatoryBoosts().forEach(boost -> boost.apply(mobEntity));
                     }
@@ -436,26 +650,14 @@ public class Raid {
         });
     }
 
-    private Map<FactionEntityType, Integer> determineMobs(int targetStrength, int waveNumber, Faction faction) {
-        Map<FactionEntityType, Integer> waveFactionEntities = new HashMap<>();
-        int selectedStrength = 0;
-        List<Pair<FactionEntityType, Integer>> weightMap = faction.getWeightMapForWave(waveNumber);
-        while(selectedStrength < targetStrength) {
-            FactionEntityType randomEntry = getRandomEntry(weightMap, level.random);
-            waveFactionEntities.merge(randomEntry, 1, Integer::sum);
-            selectedStrength += randomEntry.getStrength();
-        }
-        return waveFactionEntities;
-    }
-
     public double getDifficultyMultiplier(Difficulty difficulty) {
         switch(difficulty) {
             case EASY:
-                return TARGET_STRENGTH_DIFFICULTY_MULTIPLIER_EASY.get();
+                return ConfigSnapshot.get().targetStrengthDifficultyMultiplierEasy;
             case NORMAL:
-                return TARGET_STRENGTH_DIFFICULTY_MULTIPLIER_NORMAL.get();
+                return ConfigSnapshot.get().targetStrengthDifficultyMultiplierNormal;
             case HARD:
-                return TARGET_STRENGTH_DIFFICULTY_MULTIPLIER_HARD.get();
+                return ConfigSnapshot.get().targetStrengthDifficultyMultiplierHard;
             default:
                 return 0;
         }
@@ -486,12 +688,13 @@ public class Raid {
             }
         }
 
-        if (abstractraiderentity != null) {
-            set.remove(abstractraiderentity);
-            set.add(mobEntity);
+        if (abstractraiderentity != null && set.remove(abstractraiderentity)) {
+            this.untrackRaider(abstractraiderentity);
         }
 
-        set.add(mobEntity);
+        if (set.add(mobEntity)) {
+            this.trackRaider(mobEntity);
+        }
         if (fresh) {
             this.totalHealth += mobEntity.getHealth();
         }
@@ -504,6 +707,7 @@ public class Raid {
         if (set != null) {
             boolean flag = set.remove(mobEntity);
             if (flag) {
+                this.untrackRaider(mobEntity);
                 if (p_221322_2_) {
                     this.totalHealth -= mobEntity.getHealth();
                 }
@@ -524,6 +728,8 @@ public class Raid {
             for(MobEntity mobEntity : waveEntry.getValue()) {
                 BlockPos blockpos = mobEntity.blockPosition();
                 if (mobEntity.isAlive() && mobEntity.level.dimension() == this.level.dimension() && !(this.getCenter().distSqr(blockpos) >= 12544.0D)) {
+                    // Catches health changes that didn't go through the hurt or heal events
+                    this.refreshHealth(mobEntity);
                     if (mobEntity.tickCount > 600) {
                         IRaider raiderCapability = RaiderHelper.getRaiderCapability(mobEntity);
                         if (this.level.getEntity(mobEntity.getUUID()) == null) {
@@ -549,19 +755,95 @@ public class Raid {
     }
 
     public void updateBossbar() {
-        this.raidEvent.setPercent(MathHelper.clamp(this.getHealthOfLivingRaiders() / this.totalHealth, 0.0F, 1.0F));
+        this.setBossbarPercent(MathHelper.clamp(this.getHealthOfLivingRaiders() / this.totalHealth, 0.0F, 1.0F));
+    }
+
+    private void setBossbarPercent(float percent) {
+        this.bossbarPercent = percent;
+        this.bossbarDirty = true;
+    }
+
+    private void setBossbarName(ITextComponent name) {
+        this.bossbarName = name;
+        this.bossbarDirty = true;
+    }
+
+    /**
+     * Sends the boss bar changes collected during this tick.
+     * The percentage is only sent when it moved by more than the configured threshold, or when the bar becomes empty or full.
+     */
+    private void flushBossbar() {
+        if (!this.bossbarDirty) {
+            return;
+        }
+        this.bossbarDirty = false;
+        float percent = this.bossbarPercent;
+        if (percent != this.sentBossbarPercent && (percent == 0.0F || percent == 1.0F || Math.abs(percent - this.sentBossbarPercent) > ConfigSnapshot.get().raidBossbarUpdateThreshold)) {
+            this.raidEvent.setPercent(percent);
+            this.sentBossbarPercent = percent;
+        }
+        // The names are cached, so an unchanged name is the same instance
+        if (this.bossbarName != null && this.bossbarName != this.raidEvent.getName()) {
+            this.raidEvent.setName(this.bossbarName);
+        }
     }
 
     public float getHealthOfLivingRaiders() {
-        float f = 0.0F;
+        return this.healthOfLivingRaiders;
+    }
 
-        for(Set<MobEntity> set : this.groupRaiderMap.values()) {
-            for(MobEntity mobEntity : set) {
-                f += mobEntity.getHealth();
-            }
+    /**
+     * Marks the raider's health as changed, the running health total picks it up at the start of the next tick.
+     * The hurt and heal events fire before the health is actually changed, so it can't be read right away.
+     */
+    public void markHealthChanged(MobEntity mobEntity) {
+        if (this.raiderHealth.containsKey(mobEntity)) {
+            this.healthChangedRaiders.add(mobEntity);
         }
+    }
 
-        return f;
+    private void flushHealthChanges() {
+        if (this.healthChangedRaiders.isEmpty()) {
+            return;
+        }
+        for (MobEntity mobEntity : this.healthChangedRaiders) {
+            this.refreshHealth(mobEntity);
+        }
+        this.healthChangedRaiders.clear();
+        this.updateBossbar();
+    }
+
+    private void refreshHealth(MobEntity mobEntity) {
+        Float previousHealth = this.raiderHealth.get(mobEntity);
+        if (previousHealth != null) {
+            float health = mobEntity.getHealth();
+            this.raiderHealth.put(mobEntity, health);
+            this.healthOfLivingRaiders += health - previousHealth;
+        }
+    }
+
+    private void trackRaider(MobEntity mobEntity) {
+        float health = mobEntity.getHealth();
+        Float previousHealth = this.raiderHealth.put(mobEntity, health);
+        if (previousHealth != null) {
+            this.healthOfLivingRaiders -= previousHealth;
+        }
+        this.healthOfLivingRaiders += health;
+        ++this.totalRaidersAlive;
+    }
+
+    private void untrackRaider(MobEntity mobEntity) {
+        Float previousHealth = this.raiderHealth.remove(mobEntity);
+        if (previousHealth != null) {
+            this.healthOfLivingRaiders -= previousHealth;
+        }
+        this.healthChangedRaiders.remove(mobEntity);
+        this.homeTargets.release(mobEntity);
+        if (--this.totalRaidersAlive <= 0) {
+            // Drop any rounding error that built up over the wave
+            this.totalRaidersAlive = 0;
+            this.healthOfLivingRaiders = 0.0F;
+        }
     }
 
     private Optional<BlockPos> getValidSpawnPos(int p_221313_1_) {
@@ -576,13 +858,57 @@ public class Raid {
     }
     @Nullable
     private BlockPos findRandomSpawnPos(int outerAttempt, int maxInnerAttempts) {
+        SpawnPositionCache spawnPositionCache = getRaidManagerCapability(this.level).getSpawnPositionCache();
+        BlockPos cachedSpawnPos = spawnPositionCache.pick(this.getCenter(), outerAttempt, this.level.random, this::isValidSpawnPos, blockPos -> this.isCachedSpawnPosValid(outerAttempt, blockPos));
+        if (cachedSpawnPos != null) {
+            return cachedSpawnPos;
+        }
+        BlockPos blockPos = this.probeSpawnPos(outerAttempt, maxInnerAttempts);
+        if (blockPos != null) {
+            spawnPositionCache.add(this.getCenter(), outerAttempt, blockPos);
+        }
+        return blockPos;
+    }
+
+    /**
+     * Probes one random position during the cooldown to fill up the cached spawn positions of this raid center
+     */
+    private void fillSpawnPositionCache() {
+        SpawnPositionCache spawnPositionCache = getRaidManagerCapability(this.level).getSpawnPositionCache();
+        if (!spawnPositionCache.isFull(this.getCenter())) {
+            BlockPos blockPos = this.probeSpawnPos(0, 1);
+            if (blockPos != null) {
+                spawnPositionCache.add(this.getCenter(), 0, blockPos);
+            }
+        }
+    }
+
+    private boolean isCachedSpawnPosValid(int outerAttempt, BlockPos blockPos) {
+        // Anything built on or dug out of the position moves the surface
+        if (this.level.getHeight(Heightmap.Type.WORLD_SURFACE, blockPos.getX(), blockPos.getZ()) != blockPos.getY()) {
+            return false;
+        }
+        return raidTarget.isValidSpawnPos(outerAttempt, blockPos.mutable(), this.level);
+    }
+
+    @Nullable
+    private BlockPos probeSpawnPos(int outerAttempt, int maxInnerAttempts) {
         int i = 2 - outerAttempt;
         BlockPos.Mutable blockpos$mutable = new BlockPos.Mutable();
 
         for(int i1 = 0; i1 < maxInnerAttempts; ++i1) {
-            float f = this.level.random.nextFloat() * ((float)Math.PI * 2F);
-            int j = this.raidTarget.getTargetBlockPos().getX() + MathHelper.floor(MathHelper.cos(f) * 32.0F * (float)i) + this.level.random.nextInt(5);
-            int l = this.raidTarget.getTargetBlockPos().getZ() + MathHelper.floor(MathHelper.sin(f) * 32.0F * (float)i) + this.level.random.nextInt(5);
+            int j;
+            int l;
+            if (outerAttempt == 0 && !this.spawnAreas.isEmpty()) {
+                // Stay inside the entity ticking chunks of the preloaded areas on the outer ring
+                BlockPos spawnArea = this.spawnAreas.get(this.level.random.nextInt(this.spawnAreas.size()));
+                j = (spawnArea.getX() & ~15) + this.level.random.nextInt(16);
+                l = (spawnArea.getZ() & ~15) + this.level.random.nextInt(16);
+            } else {
+                float f = this.level.random.nextFloat() * ((float)Math.PI * 2F);
+                j = this.raidTarget.getTargetBlockPos().getX() + MathHelper.floor(MathHelper.cos(f) * 32.0F * (float)i) + this.level.random.nextInt(5);
+                l = this.raidTarget.getTargetBlockPos().getZ() + MathHelper.floor(MathHelper.sin(f) * 32.0F * (float)i) + this.level.random.nextInt(5);
+            }
             int k = this.level.getHeight(Heightmap.Type.WORLD_SURFACE, j, l);
             blockpos$mutable.set(j, k, l);
             if (isValidSpawnPos(blockpos$mutable) && raidTarget.isValidSpawnPos(outerAttempt, blockpos$mutable, this.level)) {
@@ -593,7 +919,7 @@ public class Raid {
         return null;
     }
 
-    private boolean isValidSpawnPos(BlockPos.Mutable blockpos$mutable){
+    private boolean isValidSpawnPos(BlockPos blockpos$mutable){
         return this.waveSpawnPos.stream().map(existingWaveSpawnPos -> blockpos$mutable.distSqr(existingWaveSpawnPos) > 40).reduce((aBoolean, aBoolean2) -> aBoolean && aBoolean2).orElse(true);
     }
 
@@ -601,11 +927,11 @@ public class Raid {
         int additionalWaves = raidTarget.getAdditionalWaves();
         switch(difficulty) {
             case EASY:
-                return NUMBER_WAVES_EASY.get() + additionalWaves;
+                return ConfigSnapshot.get().numberWavesEasy + additionalWaves;
             case NORMAL:
-                return NUMBER_WAVES_NORMAL.get() + additionalWaves;
+                return ConfigSnapshot.get().numberWavesNormal + additionalWaves;
             case HARD:
-                return NUMBER_WAVES_HARD.get() + additionalWaves;
+                return ConfigSnapshot.get().numberWavesHard + additionalWaves;
             default:
                 return 0;
         }
@@ -623,41 +949,52 @@ public class Raid {
         return groupsSpawned;
     }
 
-    private Predicate<ServerPlayerEntity> validPlayer() {
-        return (serverPlayerEntity) -> {
-            BlockPos blockpos = serverPlayerEntity.blockPosition();
-            IRaidManager cap = getRaidManagerCapability(this.level);
-            return serverPlayerEntity.isAlive() && cap.getRaidAt(blockpos) == this;
-        };
-    }
-
     private void updatePlayers() {
-        Set<ServerPlayerEntity> set = Sets.newHashSet(this.raidEvent.getPlayers());
-        List<ServerPlayerEntity> list = this.level.getPlayers(this.validPlayer());
-
-        for(ServerPlayerEntity serverplayerentity : list) {
-            if (!set.contains(serverplayerentity)) {
-                this.raidEvent.addPlayer(serverplayerentity);
+        IRaidManager cap = getRaidManagerCapability(this.level);
+        Set<ServerPlayerEntity> players = cap.getPlayersInRaid(this);
+        Collection<ServerPlayerEntity> bossbarPlayers = this.raidEvent.getPlayers();
+        List<ServerPlayerEntity> leftPlayers = null;
+
+        for(ServerPlayerEntity serverplayerentity1 : bossbarPlayers) {
+            if (!players.contains(serverplayerentity1)) {
+                if (leftPlayers == null) {
+                    leftPlayers = new ArrayList<>();
+                }
+                leftPlayers.add(serverplayerentity1);
             }
         }
+        if (leftPlayers != null) {
+            leftPlayers.forEach(this.raidEvent::removePlayer);
+        }
 
-        for(ServerPlayerEntity serverplayerentity1 : set) {
-            if (!list.contains(serverplayerentity1)) {
-                this.raidEvent.removePlayer(serverplayerentity1);
+        for(ServerPlayerEntity serverplayerentity : players) {
+            if (!bossbarPlayers.contains(serverplayerentity)) {
+                this.raidEvent.addPlayer(serverplayerentity);
             }
         }
     }
 
     public int getTotalRaidersAlive() {
-        return this.groupRaiderMap.values().stream().mapToInt(Set::size).sum();
+        return this.totalRaidersAlive;
+    }
+
+    public int getRaidersAliveInWave(int wave) {
+        Set<MobEntity> set = this.groupRaiderMap.get(wave);
+        return set == null ? 0 : set.size();
     }
 
     public Set<MobEntity> getRaidersInWave(int wave) {
         return this.groupRaiderMap.get(wave);
     }
 
+    public boolean isRaider(MobEntity mobEntity) {
+        return this.raiderHealth.containsKey(mobEntity);
+    }
+
     public void stop() {
         this.active = false;
+        this.waveSpawns.clear();
+        this.releaseSpawnAreas();
         this.raidEvent.removeAllPlayers();
         this.status = Status.STOPPED;
     }
@@ -700,15 +1037,33 @@ public class Raid {
     }
 
     private ITextComponent getRaidEventName(RaidTarget raidTarget) {
-        return raidTarget.getRaidType() == RaidTarget.Type.BATTLE ? new TranslationTextComponent("event.faction_craft.battle") : this.factions.get(0).getRaidConfig().getRaidBarNameComponent();
+        if (this.raidEventName == null) {
+            this.raidEventName = raidTarget.getRaidType() == RaidTarget.Type.BATTLE ? new TranslationTextComponent("event.faction_craft.battle") : this.factions.get(0).getRaidConfig().getRaidBarNameComponent();
+        }
+        return this.raidEventName;
     }
 
     private ITextComponent getRaidEventNameDefeat(RaidTarget raidTarget) {
-        return raidTarget.getRaidType() == RaidTarget.Type.BATTLE ? new TranslationTextComponent("event.faction_craft.battle.over") : this.factions.get(0).getRaidConfig().getRaidBarDefeatComponent();
+        if (this.raidEventNameDefeat == null) {
+            this.raidEventNameDefeat = raidTarget.getRaidType() == RaidTarget.Type.BATTLE ? new TranslationTextComponent("event.faction_craft.battle.over") : this.factions.get(0).getRaidConfig().getRaidBarDefeatComponent();
+        }
+        return this.raidEventNameDefeat;
     }
 
     private ITextComponent getRaidEventNameVictory(RaidTarget raidTarget) {
-        return raidTarget.getRaidType() == RaidTarget.Type.BATTLE ? new TranslationTextComponent("event.faction_craft.battle.over") : this.factions.get(0).getRaidConfig().getRaidBarVictoryComponent();
+        if (this.raidEventNameVictory == null) {
+            this.raidEventNameVictory = raidTarget.getRaidType() == RaidTarget.Type.BATTLE ? new TranslationTextComponent("event.faction_craft.battle.over") : this.factions.get(0).getRaidConfig().getRaidBarVictoryComponent();
+        }
+        return this.raidEventNameVictory;
+    }
+
+    private ITextComponent getRaidersRemainingName(int raidersRemaining) {
+        ITextComponent name = this.raidersRemainingNames[raidersRemaining - 1];
+        if (name == null) {
+            name = getRaidEventName(raidTarget).copy().append(" - ").append(new TranslationTextComponent("event.minecraft.raid.raiders_remaining", raidersRemaining));
+            this.raidersRemainingNames[raidersRemaining - 1] = name;
+        }
+        return name;
     }
 
     private enum Status {
@@ -746,6 +1101,14 @@ public class Raid {
         pNbt.putFloat("TotalHealth", this.totalHealth);
         pNbt.putInt("NumGroups", this.numGroups);
         pNbt.putString("Status", this.status.getName());
+        if (this.nextWavePlan != null) {
+            pNbt.put("NextWavePlan", this.nextWavePlan.save(new CompoundNBT()));
+        }
+        ListNBT waveSpawnsNbt = new ListNBT();
+        for(FactionWaveSpawn waveSpawn : this.waveSpawns) {
+            waveSpawnsNbt.add(waveSpawn.save(new CompoundNBT()));
+        }
+        pNbt.put("WaveSpawns", waveSpawnsNbt);
 
         ListNBT factionListnbt = new ListNBT();
         for(Faction faction : this.factions) {
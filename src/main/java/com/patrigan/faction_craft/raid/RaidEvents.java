@@ -1,12 +1,18 @@
 package com.patrigan.faction_craft.raid;
 
 import com.patrigan.faction_craft.capabilities.raidmanager.IRaidManager;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.IWorld;
+import net.minecraft.world.World;
 import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.world.BlockEvent;
+import net.minecraftforge.event.world.ExplosionEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
 
 import static com.patrigan.faction_craft.FactionCraft.MODID;
 import static com.patrigan.faction_craft.capabilities.raidmanager.RaidManagerHelper.getRaidManagerCapability;
+import static com.patrigan.faction_craft.capabilities.raidmanager.RaidManagerHelper.getRaidManagerCapabilityLazy;
 
 @Mod.EventBusSubscriber(modid = MODID)
 public class RaidEvents {
@@ -18,4 +24,33 @@ public class RaidEvents {
             raidManagerCapability.tick();
         }
     }
+
+    @SubscribeEvent
+    public static void onBlockBreakEvent(BlockEvent.BreakEvent event){
+        onBlockChanged(event.getWorld(), event.getPos());
+    }
+
+    @SubscribeEvent
+    public static void onBlockPlaceEvent(BlockEvent.EntityPlaceEvent event){
+        onBlockChanged(event.getWorld(), event.getPos());
+    }
+
+    @SubscribeEvent
+    public static void onFluidPlaceBlockEvent(BlockEvent.FluidPlaceBlockEvent event){
+        onBlockChanged(event.getWorld(), event.getPos());
+    }
+
+    @SubscribeEvent
+    public static void onExplosionDetonateEvent(ExplosionEvent.Detonate event){
+        event.getAffectedBlocks().forEach(blockPos -> onBlockChanged(event.getWorld(), blockPos));
+    }
+
+    private static void onBlockChanged(IWorld world, BlockPos blockPos){
+        if(world instanceof World && !world.isClientSide()) {
+            getRaidManagerCapabilityLazy((World) world).ifPresent(cap -> {
+                cap.getSpawnPositionCache().onBlockChanged(blockPos);
+                cap.getRaids().values().forEach(raid -> raid.getFlowField().onBlockChanged(blockPos));
+            });
+        }
+    }
 }
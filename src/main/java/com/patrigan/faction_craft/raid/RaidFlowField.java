@@ -0,0 +1,253 @@
+package com.patrigan.faction_craft.raid;
+
+import it.unimi.dsi.fastutil.ints.IntArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongHeapPriorityQueue;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.gen.Heightmap;
+import net.minecraft.world.server.ServerWorld;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * A coarse flow field from the area around a raid to its center, shared by all raiders of the raid.
+ * The area is split into cells of {@link #CELL_SIZE} blocks, every cell points to the neighbouring cell on the cheapest route to the center.
+ * Raiders walk from waypoint to waypoint, so they only need short path searches of their own.
+ * The field is built a few cells per tick once a raider asks for it, and cells are sampled again when a block in them changes.
+ * The last finished route stays in use while a new one is worked out.
+ */
+public class RaidFlowField {
+    private static final int CELL_SIZE = 8;
+    private static final int RADIUS_CELLS = 14;
+    private static final int SIZE = RADIUS_CELLS * 2 + 1;
+    private static final int MAX_STEP_HEIGHT = 6;
+    private static final int SAMPLES_PER_TICK = 32;
+    private static final int NODES_PER_TICK = 128;
+    // Cells in unloaded chunks are sampled again after this many ticks
+    private static final int UNLOADED_RESAMPLE_TICKS = 200;
+    private static final int UNSAMPLED = Integer.MIN_VALUE;
+    private static final int[] NEIGHBOUR_X = {1, -1, 0, 0, 1, 1, -1, -1};
+    private static final int[] NEIGHBOUR_Z = {0, 0, 1, -1, 1, -1, 1, -1};
+    private static final int[] NEIGHBOUR_COST = {10, 10, 10, 10, 14, 14, 14, 14};
+
+    private BlockPos center = null;
+    private int minX;
+    private int minZ;
+    // The cell the route is worked out from, it follows the raid center while the center stays on the grid
+    private int centerCell;
+    private boolean requested = false;
+    private int ticksSinceBuilt = 0;
+
+    private final int[] heights = new int[SIZE * SIZE];
+    private final boolean[] passable = new boolean[SIZE * SIZE];
+    private final boolean[] unloaded = new boolean[SIZE * SIZE];
+    private final boolean[] queued = new boolean[SIZE * SIZE];
+    private final IntArrayFIFOQueue sampleQueue = new IntArrayFIFOQueue();
+    private boolean changed = false;
+
+    // The route being worked out, published to next once it is done
+    private final int[] distances = new int[SIZE * SIZE];
+    private final int[] working = new int[SIZE * SIZE];
+    private final LongHeapPriorityQueue openCells = new LongHeapPriorityQueue();
+    private boolean solving = false;
+    // The published route, with the grid it was worked out on
+    @Nullable
+    private int[] next = null;
+    private int[] nextHeights = null;
+    private int nextMinX;
+    private int nextMinZ;
+
+    /**
+     * Continues building the field, if a raider asked for it.
+     * When the center of the raid moves to another cell the route is worked out again from that cell,
+     * the cells are only laid out and sampled again once the center leaves the grid.
+     */
+    public void tick(ServerWorld level, BlockPos raidCenter) {
+        if (!this.requested) {
+            return;
+        }
+        int raidCenterCell = this.center == null ? -1 : getCellIndex(raidCenter, this.minX, this.minZ);
+        if (raidCenterCell < 0) {
+            this.reset(raidCenter);
+        } else if (raidCenterCell != this.centerCell) {
+            this.center = raidCenter.immutable();
+            this.centerCell = raidCenterCell;
+            this.changed = true;
+        }
+        if (++this.ticksSinceBuilt >= UNLOADED_RESAMPLE_TICKS) {
+            this.ticksSinceBuilt = 0;
+            for (int i = 0; i < this.unloaded.length; i++) {
+                if (this.unloaded[i]) {
+                    this.queueSample(i);
+                }
+            }
+        }
+        if (!this.sampleQueue.isEmpty()) {
+            for (int samples = 0; samples < SAMPLES_PER_TICK && !this.sampleQueue.isEmpty(); samples++) {
+                this.sample(level, this.sampleQueue.dequeueInt());
+            }
+            return;
+        }
+        if (this.changed) {
+            this.changed = false;
+            this.startSolving();
+        }
+        if (this.solving) {
+            this.solve();
+        }
+    }
+
+    /**
+     * @return the waypoint a raider at the given position should walk to, or null if the field can't tell yet
+     */
+    @Nullable
+    public BlockPos getWaypoint(BlockPos blockPos) {
+        this.requested = true;
+        if (this.next == null) {
+            return null;
+        }
+        int index = getCellIndex(blockPos, this.nextMinX, this.nextMinZ);
+        if (index < 0 || this.next[index] < 0) {
+            return null;
+        }
+        // Look two cells ahead, about as far as raiders used to walk in one go
+        int waypoint = this.next[index];
+        if (this.next[waypoint] >= 0) {
+            waypoint = this.next[waypoint];
+        }
+        return new BlockPos(getCellCenterX(waypoint, this.nextMinX), this.nextHeights[waypoint], getCellCenterZ(waypoint, this.nextMinZ));
+    }
+
+    /**
+     * Samples the cell of the changed block again
+     */
+    public void onBlockChanged(BlockPos blockPos) {
+        if (this.center == null) {
+            return;
+        }
+        int index = getCellIndex(blockPos, this.minX, this.minZ);
+        if (index >= 0) {
+            this.queueSample(index);
+        }
+    }
+
+    /**
+     * Lays the grid out around the raid center and samples all cells again, the published route stays in use meanwhile
+     */
+    private void reset(BlockPos raidCenter) {
+        this.center = raidCenter.immutable();
+        this.minX = (raidCenter.getX() - CELL_SIZE / 2) - RADIUS_CELLS * CELL_SIZE;
+        this.minZ = (raidCenter.getZ() - CELL_SIZE / 2) - RADIUS_CELLS * CELL_SIZE;
+        this.centerCell = RADIUS_CELLS * SIZE + RADIUS_CELLS;
+        this.changed = false;
+        this.solving = false;
+        this.openCells.clear();
+        this.sampleQueue.clear();
+        Arrays.fill(this.heights, UNSAMPLED);
+        Arrays.fill(this.queued, false);
+        Arrays.fill(this.unloaded, false);
+        for (int i = 0; i < SIZE * SIZE; i++) {
+            this.queueSample(i);
+        }
+    }
+
+    private void queueSample(int index) {
+        if (!this.queued[index]) {
+            this.queued[index] = true;
+            this.sampleQueue.enqueue(index);
+        }
+    }
+
+    private void sample(ServerWorld level, int index) {
+        this.queued[index] = false;
+        int x = getCellCenterX(index, this.minX);
+        int z = getCellCenterZ(index, this.minZ);
+        BlockPos.Mutable blockPos = new BlockPos.Mutable(x, 0, z);
+        boolean cellUnloaded = !level.hasChunkAt(blockPos);
+        int height = UNSAMPLED;
+        boolean cellPassable = false;
+        if (!cellUnloaded) {
+            height = level.getHeight(Heightmap.Type.MOTION_BLOCKING_NO_LEAVES, x, z);
+            blockPos.setY(height - 1);
+            cellPassable = level.getFluidState(blockPos).isEmpty();
+        }
+        this.unloaded[index] = cellUnloaded;
+        if (height != this.heights[index] || cellPassable != this.passable[index]) {
+            this.heights[index] = height;
+            this.passable[index] = cellPassable;
+            this.changed = true;
+        }
+    }
+
+    private void startSolving() {
+        Arrays.fill(this.distances, Integer.MAX_VALUE);
+        Arrays.fill(this.working, -1);
+        this.openCells.clear();
+        this.distances[this.centerCell] = 0;
+        this.openCells.enqueue(this.centerCell);
+        this.solving = true;
+    }
+
+    /**
+     * Dijkstra outwards from the center cell, a limited number of cells per tick
+     */
+    private void solve() {
+        for (int nodes = 0; nodes < NODES_PER_TICK; nodes++) {
+            if (this.openCells.isEmpty()) {
+                this.next = Arrays.copyOf(this.working, this.working.length);
+                this.nextHeights = Arrays.copyOf(this.heights, this.heights.length);
+                this.nextMinX = this.minX;
+                this.nextMinZ = this.minZ;
+                this.solving = false;
+                this.ticksSinceBuilt = 0;
+                return;
+            }
+            long open = this.openCells.dequeueLong();
+            int index = (int) open;
+            int distance = (int) (open >>> 32);
+            if (distance > this.distances[index]) {
+                continue;
+            }
+            int cellX = index % SIZE;
+            int cellZ = index / SIZE;
+            for (int n = 0; n < NEIGHBOUR_X.length; n++) {
+                int neighbourX = cellX + NEIGHBOUR_X[n];
+                int neighbourZ = cellZ + NEIGHBOUR_Z[n];
+                if (neighbourX < 0 || neighbourX >= SIZE || neighbourZ < 0 || neighbourZ >= SIZE) {
+                    continue;
+                }
+                int neighbour = neighbourZ * SIZE + neighbourX;
+                if (!this.passable[neighbour]) {
+                    continue;
+                }
+                int heightDifference = Math.abs(this.heights[neighbour] - this.heights[index]);
+                if (this.passable[index] && heightDifference > MAX_STEP_HEIGHT) {
+                    continue;
+                }
+                int neighbourDistance = distance + NEIGHBOUR_COST[n] + (this.passable[index] ? heightDifference * 4 : 0);
+                if (neighbourDistance < this.distances[neighbour]) {
+                    this.distances[neighbour] = neighbourDistance;
+                    this.working[neighbour] = index;
+                    this.openCells.enqueue(((long) neighbourDistance << 32) | neighbour);
+                }
+            }
+        }
+    }
+
+    private static int getCellIndex(BlockPos blockPos, int minX, int minZ) {
+        int cellX = Math.floorDiv(blockPos.getX() - minX, CELL_SIZE);
+        int cellZ = Math.floorDiv(blockPos.getZ() - minZ, CELL_SIZE);
+        if (cellX < 0 || cellX >= SIZE || cellZ < 0 || cellZ >= SIZE) {
+            return -1;
+        }
+        return cellZ * SIZE + cellX;
+    }
+
+    private static int getCellCenterX(int index, int minX) {
+        return minX + (index % SIZE) * CELL_SIZE + CELL_SIZE / 2;
+    }
+
+    private static int getCellCenterZ(int index, int minZ) {
+        return minZ + (index / SIZE) * CELL_SIZE + CELL_SIZE / 2;
+    }
+}
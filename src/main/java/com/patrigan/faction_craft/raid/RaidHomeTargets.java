@@ -0,0 +1,109 @@
+package com.patrigan.faction_craft.raid;
+
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.entity.MobEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.village.PointOfInterest;
+import net.minecraft.village.PointOfInterestManager;
+import net.minecraft.village.PointOfInterestType;
+import net.minecraft.world.server.ServerWorld;
+
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * The homes around a raid center that raiders can invade, looked up from the POI manager at most once every {@link #REFRESH_TICKS}.
+ * Raiders claim the home they head for, and get the least claimed homes in their reach, so they spread over the homes.
+ */
+public class RaidHomeTargets {
+    private static final int REFRESH_TICKS = 100;
+    private static final int SEARCH_RADIUS = 96;
+    private static final int RAIDER_REACH = 48;
+
+    private List<BlockPos> homes = Collections.emptyList();
+    private long lastRefresh = -REFRESH_TICKS;
+    private final Map<MobEntity, BlockPos> claims = new IdentityHashMap<>();
+    private final Object2IntMap<BlockPos> claimCounts = new Object2IntOpenHashMap<>();
+    private final Predicate<MobEntity> isRaider;
+
+    /**
+     * @param isRaider tells if a mob is still one of the raid's raiders, claims of mobs that aren't are dropped
+     */
+    public RaidHomeTargets(Predicate<MobEntity> isRaider) {
+        this.isRaider = isRaider;
+    }
+
+    /**
+     * Claims a home within reach of the raider, replacing the home it claimed before.
+     * @param canClaim filters out the homes the raider doesn't want, like the ones it just visited
+     * @return the claimed home, or null if there is none the raider can claim
+     */
+    @Nullable
+    public BlockPos claim(ServerWorld level, BlockPos center, MobEntity raider, Predicate<BlockPos> canClaim) {
+        this.refresh(level, center);
+        this.release(raider);
+        BlockPos raiderPos = raider.blockPosition();
+        List<BlockPos> leastClaimed = new ArrayList<>();
+        int leastClaims = Integer.MAX_VALUE;
+        for (BlockPos home : this.homes) {
+            if (!home.closerThan(raiderPos, RAIDER_REACH) || !canClaim.test(home)) {
+                continue;
+            }
+            int homeClaims = this.claimCounts.getInt(home);
+            if (homeClaims < leastClaims) {
+                leastClaims = homeClaims;
+                leastClaimed.clear();
+            }
+            if (homeClaims == leastClaims) {
+                leastClaimed.add(home);
+            }
+        }
+        if (leastClaimed.isEmpty()) {
+            return null;
+        }
+        BlockPos home = leastClaimed.get(raider.getRandom().nextInt(leastClaimed.size()));
+        this.claims.put(raider, home);
+        this.claimCounts.put(home, leastClaims + 1);
+        return home;
+    }
+
+    public void release(MobEntity raider) {
+        BlockPos home = this.claims.remove(raider);
+        if (home != null) {
+            this.releaseHome(home);
+        }
+    }
+
+    private void releaseHome(BlockPos home) {
+        int homeClaims = this.claimCounts.getInt(home) - 1;
+        if (homeClaims <= 0) {
+            this.claimCounts.removeInt(home);
+        } else {
+            this.claimCounts.put(home, homeClaims);
+        }
+    }
+
+    private void refresh(ServerWorld level, BlockPos center) {
+        long gameTime = level.getGameTime();
+        if (gameTime - this.lastRefresh < REFRESH_TICKS && gameTime >= this.lastRefresh) {
+            return;
+        }
+        this.lastRefresh = gameTime;
+        this.homes = level.getPoiManager().getInRange(type -> type == PointOfInterestType.HOME, center, SEARCH_RADIUS, PointOfInterestManager.Status.ANY)
+                .map(PointOfInterest::getPos)
+                .collect(Collectors.toList());
+        // Raiders that died, were removed from the world or left the raid without giving up their claim
+        Iterator<Map.Entry<MobEntity, BlockPos>> iterator = this.claims.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<MobEntity, BlockPos> claim = iterator.next();
+            MobEntity raider = claim.getKey();
+            if (raider.removed || !raider.isAlive() || !this.isRaider.test(raider)) {
+                iterator.remove();
+                this.releaseHome(claim.getValue());
+            }
+        }
+    }
+}
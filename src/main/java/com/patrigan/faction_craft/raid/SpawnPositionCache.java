@@ -0,0 +1,175 @@
+package com.patrigan.faction_craft.raid;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Wave spawn positions that passed the spawn checks before, grouped by the chunk of the raid center they were found for.
+ * Raids against the same center pick from here before probing random positions, and add what their probes find.
+ * Positions that keep failing their checks, or whose chunk had a block change, are dropped.
+ */
+public class SpawnPositionCache {
+    private static final int MAX_CENTERS = 64;
+    private static final int MAX_CANDIDATES = 12;
+    private static final int MAX_SCORE = 16;
+
+    private final Map<Long, List<Candidate>> centers = new LinkedHashMap<Long, List<Candidate>>(16, 0.75F, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, List<Candidate>> eldest) {
+            if (size() > MAX_CENTERS) {
+                eldest.getValue().forEach(candidate -> unindex(eldest.getKey(), Collections.emptyList(), candidate));
+                return true;
+            }
+            return false;
+        }
+    };
+    private final Long2ObjectMap<LongSet> centersByChunk = new Long2ObjectOpenHashMap<>();
+
+    /**
+     * Picks a cached position for the center, favouring positions that were used for waves before.
+     * @param canUse filters out positions the raid can't use right now, without counting against them
+     * @param isValid checks a candidate against the current state of the world, a failed check counts against the position
+     * @return a valid position, or null if there is none cached
+     */
+    @Nullable
+    public BlockPos pick(BlockPos center, int outerAttempt, Random random, Predicate<BlockPos> canUse, Predicate<BlockPos> isValid) {
+        long centerKey = getKey(center);
+        List<Candidate> candidates = this.centers.get(centerKey);
+        if (candidates == null) {
+            return null;
+        }
+        List<Candidate> remaining = new ArrayList<>(candidates.size());
+        int totalScore = 0;
+        for (Candidate candidate : candidates) {
+            if (candidate.outerAttempt == outerAttempt && canUse.test(candidate.blockPos)) {
+                remaining.add(candidate);
+                totalScore += candidate.score;
+            }
+        }
+        while (!remaining.isEmpty()) {
+            int picked = random.nextInt(totalScore);
+            Candidate candidate = null;
+            for (Candidate remainingCandidate : remaining) {
+                picked -= remainingCandidate.score;
+                if (picked < 0) {
+                    candidate = remainingCandidate;
+                    break;
+                }
+            }
+            remaining.remove(candidate);
+            totalScore -= candidate.score;
+            if (isValid.test(candidate.blockPos)) {
+                return candidate.blockPos;
+            }
+            if (--candidate.score <= 0) {
+                candidates.remove(candidate);
+                unindex(centerKey, candidates, candidate);
+            }
+        }
+        return null;
+    }
+
+    public boolean isFull(BlockPos center) {
+        List<Candidate> candidates = this.centers.get(getKey(center));
+        return candidates != null && candidates.size() >= MAX_CANDIDATES;
+    }
+
+    /**
+     * Adds a position that just passed the spawn checks, unless the center already has enough positions or one close to it.
+     */
+    public void add(BlockPos center, int outerAttempt, BlockPos blockPos) {
+        long centerKey = getKey(center);
+        List<Candidate> candidates = this.centers.computeIfAbsent(centerKey, key -> new ArrayList<>());
+        if (candidates.size() >= MAX_CANDIDATES) {
+            return;
+        }
+        for (Candidate candidate : candidates) {
+            if (candidate.blockPos.distSqr(blockPos) <= 4) {
+                return;
+            }
+        }
+        Candidate candidate = new Candidate(blockPos.immutable(), outerAttempt);
+        candidates.add(candidate);
+        LongSet chunkCenters = this.centersByChunk.get(candidate.chunk);
+        if (chunkCenters == null) {
+            chunkCenters = new LongOpenHashSet();
+            this.centersByChunk.put(candidate.chunk, chunkCenters);
+        }
+        chunkCenters.add(centerKey);
+    }
+
+    /**
+     * Raises the score of the position after a wave spawned there
+     */
+    public void markUsed(BlockPos center, BlockPos blockPos) {
+        List<Candidate> candidates = this.centers.get(getKey(center));
+        if (candidates != null) {
+            for (Candidate candidate : candidates) {
+                if (candidate.blockPos.equals(blockPos)) {
+                    candidate.score = Math.min(candidate.score + 1, MAX_SCORE);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops every position in the chunk of the changed block
+     */
+    public void onBlockChanged(BlockPos blockPos) {
+        long chunk = ChunkPos.asLong(blockPos.getX() >> 4, blockPos.getZ() >> 4);
+        LongSet chunkCenters = this.centersByChunk.remove(chunk);
+        if (chunkCenters == null) {
+            return;
+        }
+        for (long centerKey : chunkCenters) {
+            List<Candidate> candidates = this.centers.get(centerKey);
+            if (candidates != null) {
+                candidates.removeIf(candidate -> candidate.chunk == chunk);
+            }
+        }
+    }
+
+    /**
+     * Removes the center from the chunk of the candidate, unless another of the remaining candidates of the center is in that chunk too
+     */
+    private void unindex(long centerKey, List<Candidate> remainingCandidates, Candidate candidate) {
+        LongSet chunkCenters = this.centersByChunk.get(candidate.chunk);
+        if (chunkCenters == null) {
+            return;
+        }
+        for (Candidate other : remainingCandidates) {
+            if (other.chunk == candidate.chunk) {
+                return;
+            }
+        }
+        chunkCenters.remove(centerKey);
+        if (chunkCenters.isEmpty()) {
+            this.centersByChunk.remove(candidate.chunk);
+        }
+    }
+
+    private static long getKey(BlockPos center) {
+        return ChunkPos.asLong(center.getX() >> 4, center.getZ() >> 4);
+    }
+
+    private static class Candidate {
+        private final BlockPos blockPos;
+        private final long chunk;
+        private final int outerAttempt;
+        private int score = 1;
+
+        private Candidate(BlockPos blockPos, int outerAttempt) {
+            this.blockPos = blockPos;
+            this.chunk = ChunkPos.asLong(blockPos.getX() >> 4, blockPos.getZ() >> 4);
+            this.outerAttempt = outerAttempt;
+        }
+    }
+}
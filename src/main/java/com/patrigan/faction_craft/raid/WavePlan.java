@@ -0,0 +1,69 @@
+package com.patrigan.faction_craft.raid;
+
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.nbt.ListNBT;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The plan for the next wave of a raid, worked out during the cooldown before it so spawning the wave only has to create the mobs.
+ */
+public class WavePlan {
+    private final int waveNumber;
+    private final List<FactionWavePlan> factionPlans;
+
+    public WavePlan(int waveNumber, List<FactionWavePlan> factionPlans) {
+        this.waveNumber = waveNumber;
+        this.factionPlans = factionPlans;
+    }
+
+    public int getWaveNumber() {
+        return waveNumber;
+    }
+
+    public List<FactionWavePlan> getFactionPlans() {
+        return factionPlans;
+    }
+
+    /**
+     * @return the first faction that hasn't been planned yet, or null if the whole wave is planned
+     */
+    @Nullable
+    public FactionWavePlan getNextUnplanned() {
+        for (FactionWavePlan factionPlan : factionPlans) {
+            if (!factionPlan.isPlanned()) {
+                return factionPlan;
+            }
+        }
+        return null;
+    }
+
+    public CompoundNBT save(CompoundNBT compoundNBT) {
+        compoundNBT.putInt("WaveNumber", waveNumber);
+        ListNBT factionPlansNbt = new ListNBT();
+        for (FactionWavePlan factionPlan : factionPlans) {
+            factionPlansNbt.add(factionPlan.save(new CompoundNBT()));
+        }
+        compoundNBT.put("FactionPlans", factionPlansNbt);
+        return compoundNBT;
+    }
+
+    /**
+     * @return the loaded plan, or null if part of it can't be restored and the wave has to be planned again
+     */
+    @Nullable
+    public static WavePlan load(CompoundNBT compoundNBT) {
+        ListNBT factionPlansNbt = compoundNBT.getList("FactionPlans", 10);
+        List<FactionWavePlan> factionPlans = new ArrayList<>(factionPlansNbt.size());
+        for (int i = 0; i < factionPlansNbt.size(); i++) {
+            FactionWavePlan factionPlan = FactionWavePlan.load(factionPlansNbt.getCompound(i));
+            if (factionPlan == null) {
+                return null;
+            }
+            factionPlans.add(factionPlan);
+        }
+        return new WavePlan(compoundNBT.getInt("WaveNumber"), factionPlans);
+    }
+}
@@ -0,0 +1,108 @@
+package com.patrigan.faction_craft.raid;
+
+import com.patrigan.faction_craft.boost.Boost;
+import com.patrigan.faction_craft.boost.LoadedBoosts;
+import com.patrigan.faction_craft.config.ConfigSnapshot;
+import com.patrigan.faction_craft.faction.Faction;
+import com.patrigan.faction_craft.faction.FactionBoostHelper;
+import com.patrigan.faction_craft.faction.entity.FactionEntityType;
+import com.patrigan.faction_craft.util.AliasSampler;
+import com.patrigan.faction_craft.util.GeneralUtils;
+
+import java.util.*;
+
+/**
+ * Plans a raid wave from a snapshot of what the raid knew when planning started.
+ * It only reads faction and entity type data and the boost snapshot taken when it was created,
+ * so it can run on a worker thread, see {@link com.patrigan.faction_craft.util.WorkerExecutor}.
+ */
+class WavePlanner {
+    private final int waveNumber;
+    private final List<Faction> factions;
+    private final int raidTargetStrength;
+    private final double difficultyMultiplier;
+    private final ConfigSnapshot config;
+    private final LoadedBoosts loadedBoosts;
+
+    WavePlanner(int waveNumber, List<Faction> factions, int raidTargetStrength, double difficultyMultiplier, ConfigSnapshot config, LoadedBoosts loadedBoosts) {
+        this.waveNumber = waveNumber;
+        this.factions = new ArrayList<>(factions);
+        this.raidTargetStrength = raidTargetStrength;
+        this.difficultyMultiplier = difficultyMultiplier;
+        this.config = config;
+        this.loadedBoosts = loadedBoosts;
+    }
+
+    /**
+     * @return the wave plan with every faction planned
+     */
+    WavePlan plan(Random random) {
+        WavePlan wavePlan = this.createWavePlan(random);
+        for (FactionWavePlan factionPlan : wavePlan.getFactionPlans()) {
+            this.planFaction(factionPlan, random);
+        }
+        return wavePlan;
+    }
+
+    /**
+     * @return the wave plan with the wave strength split over the factions, but none of them planned yet
+     */
+    WavePlan createWavePlan(Random random) {
+        double waveMultiplier = config.baseWaveMultiplier + ((waveNumber - 1) * config.multiplierIncreasePerWave);
+        double spreadMultiplier = ((random.nextFloat()*2)-1)*config.waveTargetStrengthSpread;
+        double badOmenMultiplier = config.multiplierIncreasePerBadOmen * (factions.size()-1);
+        double totalMultiplier = waveMultiplier + spreadMultiplier + difficultyMultiplier + badOmenMultiplier;
+        int targetStrength = (int) Math.floor(raidTargetStrength * totalMultiplier);
+        Map<Faction, Integer> factionFractions = determineFactionFractions(targetStrength);
+        List<FactionWavePlan> factionPlans = new ArrayList<>(factionFractions.size());
+        factionFractions.forEach((faction, factionStrength) -> factionPlans.add(new FactionWavePlan(faction, factionStrength)));
+        return new WavePlan(waveNumber, factionPlans);
+    }
+
+    void planFaction(FactionWavePlan factionPlan, Random random) {
+        Faction faction = factionPlan.getFaction();
+        int mobsFraction = (int) Math.floor(factionPlan.getTargetStrength() * faction.getRaidConfig().getMobsFraction());
+        List<FactionEntityType> slots = new ArrayList<>();
+        determineMobs(mobsFraction, faction, random).forEach((factionEntityType, amount) -> {
+            for (int i = 0; i < amount; i++) {
+                slots.add(factionEntityType);
+            }
+        });
+        List<Integer> captainSlots = new ArrayList<>();
+        for (int i = 0; i < slots.size(); i++) {
+            if (slots.get(i).canBeBannerHolder()) {
+                captainSlots.add(i);
+            }
+        }
+        Integer leaderSlot = GeneralUtils.getRandomItem(captainSlots, random);
+        int leader = leaderSlot == null ? -1 : leaderSlot;
+        int mobStrength = 0;
+        for (FactionEntityType factionEntityType : slots) {
+            mobStrength += factionEntityType.getStrength();
+        }
+        List<List<Boost>> slotBoosts = FactionBoostHelper.planBoosts(loadedBoosts, factionPlan.getTargetStrength() - mobStrength, slots, leader, faction, random);
+        factionPlan.setPlan(slots, slotBoosts, leader);
+    }
+
+    private Map<Faction, Integer> determineFactionFractions(int targetStrength) {
+        Map<Faction, Integer> factionFractions = new HashMap<>();
+        int perFactionStrength = (int) Math.floor(targetStrength / factions.size());
+        factions.forEach(faction -> factionFractions.merge(faction, perFactionStrength, Integer::sum));
+        return factionFractions;
+    }
+
+    private Map<FactionEntityType, Integer> determineMobs(int targetStrength, Faction faction, Random random) {
+        Map<FactionEntityType, Integer> waveFactionEntities = new HashMap<>();
+        int selectedStrength = 0;
+        AliasSampler<FactionEntityType> sampler = faction.getSamplerForWave(waveNumber);
+        while(selectedStrength < targetStrength) {
+            FactionEntityType randomEntry = sampler.sample(random);
+            if(randomEntry == null){
+                break;
+            }
+            waveFactionEntities.merge(randomEntry, 1, Integer::sum);
+            selectedStrength += randomEntry.getStrength();
+        }
+        return waveFactionEntities;
+    }
+}
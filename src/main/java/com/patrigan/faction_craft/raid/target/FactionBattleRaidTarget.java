@@ -3,21 +3,20 @@ package com.patrigan.faction_craft.raid.target;
 import com.patrigan.faction_craft.FactionCraft;
 import com.patrigan.faction_craft.capabilities.factionentity.FactionEntity;
 import com.patrigan.faction_craft.capabilities.factionentity.FactionEntityHelper;
+import com.patrigan.faction_craft.config.ConfigSnapshot;
 import com.patrigan.faction_craft.event.CalculateStrengthEvent;
 import com.patrigan.faction_craft.faction.Faction;
 import com.patrigan.faction_craft.raid.Raid;
 import net.minecraft.block.Blocks;
 import net.minecraft.entity.EntitySpawnPlacementRegistry;
 import net.minecraft.entity.EntityType;
+import net.minecraft.entity.MobEntity;
 import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.server.ServerWorld;
 import net.minecraft.world.spawner.WorldEntitySpawner;
 
-import java.util.stream.Collectors;
-
-import static com.patrigan.faction_craft.config.FactionCraftConfig.*;
 import static com.patrigan.faction_craft.raid.target.RaidTarget.Type.*;
 
 public class FactionBattleRaidTarget implements RaidTarget {
@@ -36,11 +35,11 @@ public class FactionBattleRaidTarget implements RaidTarget {
     }
 
     private int calculateTargetStrength(ServerWorld level) {
-        int strength = FACTION_BATTLE_RAID_TARGET_BASE_STRENGTH.get();
+        int strength = ConfigSnapshot.get().factionBattleRaidTargetBaseStrength;
         CalculateStrengthEvent event = new CalculateStrengthEvent.FactionBattle(BATTLE, targetBlockPos, level, strength, strength, faction1, faction2);
         net.minecraftforge.common.MinecraftForge.EVENT_BUS.post(event);
         FactionCraft.LOGGER.info("Strength = " + strength);
-        return (int) Math.floor(event.getStrength()*FACTION_BATTLE_RAID_TARGET_STRENGTH_MULTIPLIER.get());
+        return (int) Math.floor(event.getStrength()*ConfigSnapshot.get().factionBattleRaidTargetStrengthMultiplier);
     }
 
     public FactionBattleRaidTarget(int targetStrength, BlockPos targetBlockPos, Faction faction1, Faction faction2) {
@@ -67,7 +66,7 @@ public class FactionBattleRaidTarget implements RaidTarget {
 
     @Override
     public int getAdditionalWaves() {
-        return (int) Math.floor(VILLAGE_RAID_ADDITIONAL_WAVE_CHANCE.get()*targetStrength);
+        return (int) Math.floor(ConfigSnapshot.get().villageRaidAdditionalWaveChance*targetStrength);
     }
 
     @Override
@@ -75,7 +74,19 @@ public class FactionBattleRaidTarget implements RaidTarget {
         if(raid.getGroupsSpawned() == 0){
             return false;
         }
-        return raid.getRaidersInWave(raid.getGroupsSpawned()).stream().map(mobEntity -> FactionEntityHelper.getFactionEntityCapability(mobEntity).getFaction()).collect(Collectors.toSet()).size()<=1;
+        // Stops at the second faction still standing, mobs without a faction count as a faction of their own
+        boolean factionSeen = false;
+        Faction remainingFaction = null;
+        for (MobEntity mobEntity : raid.getRaidersInWave(raid.getGroupsSpawned())) {
+            Faction faction = FactionEntityHelper.getFactionEntityCapability(mobEntity).getFaction();
+            if (!factionSeen) {
+                factionSeen = true;
+                remainingFaction = faction;
+            } else if (faction != remainingFaction) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
@@ -1,6 +1,7 @@
 package com.patrigan.faction_craft.raid.target;
 
 import com.patrigan.faction_craft.FactionCraft;
+import com.patrigan.faction_craft.config.ConfigSnapshot;
 import com.patrigan.faction_craft.event.CalculateStrengthEvent;
 import com.patrigan.faction_craft.raid.Raid;
 import net.minecraft.block.Blocks;
@@ -13,7 +14,6 @@ import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.server.ServerWorld;
 import net.minecraft.world.spawner.WorldEntitySpawner;
 
-import static com.patrigan.faction_craft.config.FactionCraftConfig.*;
 import static com.patrigan.faction_craft.raid.target.RaidTarget.Type.PLAYER;
 import static com.patrigan.faction_craft.raid.target.RaidTarget.Type.VILLAGE;
 
@@ -29,11 +29,11 @@ public class PlayerRaidTarget implements RaidTarget {
     }
 
     private int calculateTargetStrength(ServerPlayerEntity player, ServerWorld level) {
-        int strength = PLAYER_RAID_TARGET_BASE_STRENGTH.get();
+        int strength = ConfigSnapshot.get().playerRaidTargetBaseStrength;
         CalculateStrengthEvent event = new CalculateStrengthEvent.Player(PLAYER, player, level, strength, strength);
         net.minecraftforge.common.MinecraftForge.EVENT_BUS.post(event);
         FactionCraft.LOGGER.info("Strength = " + strength);
-        return (int) Math.floor(event.getStrength()*PLAYER_RAID_TARGET_STRENGTH_MULTIPLIER.get());
+        return (int) Math.floor(event.getStrength()*ConfigSnapshot.get().playerRaidTargetStrengthMultiplier);
     }
 
     public PlayerRaidTarget(ServerPlayerEntity player, int targetStrength) {
@@ -58,7 +58,7 @@ public class PlayerRaidTarget implements RaidTarget {
 
     @Override
     public int getAdditionalWaves() {
-        return (int) Math.floor(VILLAGE_RAID_ADDITIONAL_WAVE_CHANCE.get()*targetStrength);
+        return (int) Math.floor(ConfigSnapshot.get().villageRaidAdditionalWaveChance*targetStrength);
     }
 
     @Override
@@ -1,6 +1,7 @@
 package com.patrigan.faction_craft.raid.target;
 
 import com.patrigan.faction_craft.FactionCraft;
+import com.patrigan.faction_craft.config.ConfigSnapshot;
 import com.patrigan.faction_craft.event.CalculateStrengthEvent;
 import com.patrigan.faction_craft.raid.Raid;
 import net.minecraft.block.Blocks;
@@ -19,7 +20,6 @@ import net.minecraft.world.spawner.WorldEntitySpawner;
 import java.util.Comparator;
 import java.util.stream.Stream;
 
-import static com.patrigan.faction_craft.config.FactionCraftConfig.*;
 import static com.patrigan.faction_craft.raid.target.RaidTarget.Type.VILLAGE;
 
 public class VillageRaidTarget implements RaidTarget {
@@ -38,14 +38,14 @@ public class VillageRaidTarget implements RaidTarget {
         int strength = 0;
         strength += level.getLoadedEntitiesOfClass(AbstractVillagerEntity.class,
                 new AxisAlignedBB(blockPos).inflate(100),
-                abstractVillagerEntity -> true).size() * VILLAGE_RAID_VILLAGER_WEIGHT.get();
+                abstractVillagerEntity -> true).size() * ConfigSnapshot.get().villageRaidVillagerWeight;
         strength += level.getLoadedEntitiesOfClass(IronGolemEntity.class,
                 new AxisAlignedBB(blockPos).inflate(100),
-                ironGolemEntity -> true).size() * VILLAGE_RAID_IRON_GOLEM_WEIGHT.get();
+                ironGolemEntity -> true).size() * ConfigSnapshot.get().villageRaidIronGolemWeight;
         CalculateStrengthEvent event = new CalculateStrengthEvent(VILLAGE, blockPos, level, strength, strength);
         net.minecraftforge.common.MinecraftForge.EVENT_BUS.post(event);
         FactionCraft.LOGGER.info("Strength = " + strength);
-        return (int) Math.floor(event.getStrength()*VILLAGE_RAID_TARGET_STRENGTH_MULTIPLIER.get());
+        return (int) Math.floor(event.getStrength()*ConfigSnapshot.get().villageRaidTargetStrengthMultiplier);
     }
 
     public VillageRaidTarget(BlockPos blockPos, int targetStrength) {
@@ -76,7 +76,7 @@ public class VillageRaidTarget implements RaidTarget {
 
     @Override
     public int getAdditionalWaves() {
-        return (int) Math.floor(VILLAGE_RAID_ADDITIONAL_WAVE_CHANCE.get()*targetStrength);
+        return (int) Math.floor(ConfigSnapshot.get().villageRaidAdditionalWaveChance*targetStrength);
     }
 
     @Override
@@ -0,0 +1,110 @@
+package com.patrigan.faction_craft.util;
+
+import java.util.Collection;
+import java.util.Random;
+import java.util.function.ToIntFunction;
+
+/**
+ * Immutable weighted sampler using Vose's alias method.
+ * Building the tables is O(n), after which every sample is O(1) and allocation free.
+ * Entries with a weight of 0 or less can never be picked.
+ */
+public class AliasSampler<T> {
+    private static final AliasSampler<?> EMPTY = new AliasSampler<>(new Object[0], new double[0], new int[0]);
+
+    private final Object[] items;
+    private final double[] probability;
+    private final int[] alias;
+
+    private AliasSampler(Object[] items, double[] probability, int[] alias) {
+        this.items = items;
+        this.probability = probability;
+        this.alias = alias;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> AliasSampler<T> empty() {
+        return (AliasSampler<T>) EMPTY;
+    }
+
+    public static <T> AliasSampler<T> create(Collection<T> entries, ToIntFunction<? super T> weightFunction) {
+        int n = 0;
+        long totalWeight = 0;
+        for (T entry : entries) {
+            int weight = weightFunction.applyAsInt(entry);
+            if (weight > 0) {
+                n++;
+                totalWeight += weight;
+            }
+        }
+        if (n == 0) {
+            return empty();
+        }
+
+        Object[] items = new Object[n];
+        double[] scaled = new double[n];
+        int i = 0;
+        for (T entry : entries) {
+            int weight = weightFunction.applyAsInt(entry);
+            if (weight > 0) {
+                items[i] = entry;
+                scaled[i] = (double) weight * n / totalWeight;
+                i++;
+            }
+        }
+
+        double[] probability = new double[n];
+        int[] alias = new int[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallSize = 0;
+        int largeSize = 0;
+        for (int j = 0; j < n; j++) {
+            if (scaled[j] < 1.0D) {
+                small[smallSize++] = j;
+            } else {
+                large[largeSize++] = j;
+            }
+        }
+        while (smallSize > 0 && largeSize > 0) {
+            int less = small[--smallSize];
+            int more = large[--largeSize];
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1.0D;
+            if (scaled[more] < 1.0D) {
+                small[smallSize++] = more;
+            } else {
+                large[largeSize++] = more;
+            }
+        }
+        // Whatever remains is 1 up to floating point error
+        while (largeSize > 0) {
+            probability[large[--largeSize]] = 1.0D;
+        }
+        while (smallSize > 0) {
+            probability[small[--smallSize]] = 1.0D;
+        }
+        return new AliasSampler<>(items, probability, alias);
+    }
+
+    public boolean isEmpty() {
+        return items.length == 0;
+    }
+
+    public int size() {
+        return items.length;
+    }
+
+    /**
+     * @return a weighted random entry, or null if this sampler is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T sample(Random random) {
+        if (items.length == 0) {
+            return null;
+        }
+        int column = random.nextInt(items.length);
+        return (T) (random.nextDouble() < probability[column] ? items[column] : items[alias[column]]);
+    }
+}
@@ -0,0 +1,54 @@
+package com.patrigan.faction_craft.util;
+
+import com.patrigan.faction_craft.FactionCraft;
+import net.minecraft.util.math.MathHelper;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A small pool of daemon threads for work that doesn't touch the world, like planning raid waves.
+ * The queue is bounded, when it is full tasks are refused and the caller does the work on its own thread instead.
+ */
+public class WorkerExecutor {
+    private static final int QUEUE_CAPACITY = 256;
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+
+    private static ThreadPoolExecutor createExecutor() {
+        int threads = MathHelper.clamp(Runtime.getRuntime().availableProcessors() - 1, 1, 4);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+            Thread thread = new Thread(runnable, "FactionCraft Worker-" + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setUncaughtExceptionHandler((t, throwable) -> FactionCraft.LOGGER.error("Uncaught exception in " + t.getName(), throwable));
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Runs the task on a worker thread and hands its result to the callback through the main thread executor.
+     * The callback gets null if the task threw.
+     * @return false if the workers are too busy to take the task, it isn't run then
+     */
+    public static <T> boolean submit(Supplier<T> task, Executor mainThreadExecutor, Consumer<T> callback) {
+        try {
+            EXECUTOR.execute(() -> {
+                T result = null;
+                try {
+                    result = task.get();
+                } catch (Exception e) {
+                    FactionCraft.LOGGER.error("Worker task failed", e);
+                }
+                T finalResult = result;
+                mainThreadExecutor.execute(() -> callback.accept(finalResult));
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+}
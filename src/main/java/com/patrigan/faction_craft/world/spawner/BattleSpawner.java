@@ -2,7 +2,7 @@ package com.patrigan.faction_craft.world.spawner;
 
 import com.patrigan.faction_craft.capabilities.raidmanager.IRaidManager;
 import com.patrigan.faction_craft.capabilities.raidmanager.RaidManagerHelper;
-import com.patrigan.faction_craft.config.FactionCraftConfig;
+import com.patrigan.faction_craft.config.ConfigSnapshot;
 import com.patrigan.faction_craft.faction.Faction;
 import com.patrigan.faction_craft.faction.Factions;
 import com.patrigan.faction_craft.raid.target.FactionBattleRaidTarget;
@@ -22,9 +22,10 @@ public class BattleSpawner implements ISpecialSpawner {
    private int nextTick;
 
    public int tick(ServerWorld pLevel, boolean pSpawnHostiles, boolean pSpawnPassives) {
+      ConfigSnapshot config = ConfigSnapshot.get();
       if (!pSpawnHostiles) {
          return 0;
-      } else if (FactionCraftConfig.DISABLE_FACTION_PATROLS.get()) {
+      } else if (config.disableFactionPatrols) {
          return 0;
       } else {
          Random random = pLevel.random;
@@ -32,9 +33,9 @@ public class BattleSpawner implements ISpecialSpawner {
          if (this.nextTick > 0) {
             return 0;
          } else {
-            this.nextTick += FactionCraftConfig.BATTLE_TICK_DELAY_BETWEEN_SPAWN_ATTEMPTS.get() + random.nextInt(FactionCraftConfig.BATTLE_VARIABLE_TICK_DELAY_BETWEEN_SPAWN_ATTEMPTS.get());
-            if (pLevel.getDayTime() >= FactionCraftConfig.BATTLE_DAYTIME_BEFORE_SPAWNING.get() && pLevel.isDay()) {
-               if (random.nextFloat() <= FactionCraftConfig.BATTLE_SPAWN_CHANCE_ON_SPAWN_ATTEMPT.get()) {
+            this.nextTick += config.battleTickDelayBetweenSpawnAttempts + random.nextInt(config.battleVariableTickDelayBetweenSpawnAttempts);
+            if (pLevel.getDayTime() >= config.battleDaytimeBeforeSpawning && pLevel.isDay()) {
+               if (random.nextFloat() <= config.battleSpawnChanceOnSpawnAttempt) {
                   return 0;
                } else {
                   int j = pLevel.players().size();
@@ -73,7 +74,7 @@ public class BattleSpawner implements ISpecialSpawner {
 
    public static int spawnFactionBattle(ServerWorld pLevel, Random random, BlockPos blockpos) {
       Faction faction1 = Factions.getRandomFactionWithEnemies(random);
-      List<Faction> enemies = faction1.getRelations().getEnemies().stream().filter(resourceLocation -> !FactionCraftConfig.DISABLED_FACTIONS.get().contains(resourceLocation.toString())).map(Factions::getFaction).filter(faction -> faction.getRelations().getEnemies().contains(faction1.getName())).collect(Collectors.toList());
+      List<Faction> enemies = faction1.getRelations().getEnemies().stream().filter(Factions::factionExists).map(Factions::getFaction).filter(faction -> Factions.isEnemy(faction, faction1)).collect(Collectors.toList());
       if(enemies.isEmpty()) {
          return 0;
       }else{
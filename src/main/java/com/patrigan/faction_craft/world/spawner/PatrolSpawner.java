@@ -1,13 +1,14 @@
 package com.patrigan.faction_craft.world.spawner;
 
-import com.mojang.datafixers.util.Pair;
+import com.patrigan.faction_craft.capabilities.patrolmanager.IPatrolManager;
+import com.patrigan.faction_craft.capabilities.patrolmanager.PatrolManagerHelper;
 import com.patrigan.faction_craft.capabilities.patroller.IPatroller;
 import com.patrigan.faction_craft.capabilities.patroller.PatrollerHelper;
-import com.patrigan.faction_craft.config.FactionCraftConfig;
+import com.patrigan.faction_craft.config.ConfigSnapshot;
 import com.patrigan.faction_craft.faction.Faction;
 import com.patrigan.faction_craft.faction.entity.FactionEntityType;
 import com.patrigan.faction_craft.faction.Factions;
-import com.patrigan.faction_craft.util.GeneralUtils;
+import com.patrigan.faction_craft.patrol.Patrol;
 import net.minecraft.block.BlockState;
 import net.minecraft.entity.*;
 import net.minecraft.entity.player.PlayerEntity;
@@ -20,9 +21,7 @@ import net.minecraft.world.server.ServerWorld;
 import net.minecraft.world.spawner.ISpecialSpawner;
 import net.minecraft.world.spawner.WorldEntitySpawner;
 
-import java.util.List;
 import java.util.Random;
-import java.util.stream.Collectors;
 
 import static net.minecraftforge.registries.ForgeRegistries.ENTITIES;
 
@@ -30,9 +29,10 @@ public class PatrolSpawner implements ISpecialSpawner {
    private int nextTick;
 
    public int tick(ServerWorld pLevel, boolean pSpawnHostiles, boolean pSpawnPassives) {
+      ConfigSnapshot config = ConfigSnapshot.get();
       if (!pSpawnHostiles) {
          return 0;
-      } else if (FactionCraftConfig.DISABLE_FACTION_PATROLS.get()) {
+      } else if (config.disableFactionPatrols) {
          return 0;
       } else {
          Random random = pLevel.random;
@@ -40,9 +40,9 @@ public class PatrolSpawner implements ISpecialSpawner {
          if (this.nextTick > 0) {
             return 0;
          } else {
-            this.nextTick += FactionCraftConfig.PATROL_TICK_DELAY_BETWEEN_SPAWN_ATTEMPTS.get() + random.nextInt(FactionCraftConfig.PATROL_VARIABLE_TICK_DELAY_BETWEEN_SPAWN_ATTEMPTS.get());
-            if (pLevel.getDayTime() >= FactionCraftConfig.PATROL_DAYTIME_BEFORE_SPAWNING.get() && pLevel.isDay()) {
-               if (random.nextFloat() <= FactionCraftConfig.PATROL_SPAWN_CHANCE_ON_SPAWN_ATTEMPT.get()) {
+            this.nextTick += config.patrolTickDelayBetweenSpawnAttempts + random.nextInt(config.patrolVariableTickDelayBetweenSpawnAttempts);
+            if (pLevel.getDayTime() >= config.patrolDaytimeBeforeSpawning && pLevel.isDay()) {
+               if (random.nextFloat() <= config.patrolSpawnChanceOnSpawnAttempt) {
                   return 0;
                } else {
                   int j = pLevel.players().size();
@@ -82,6 +82,8 @@ public class PatrolSpawner implements ISpecialSpawner {
 
    public static int spawnPatrol(ServerWorld pLevel, Random random, Faction faction, BlockPos blockpos) {
       BlockPos.Mutable mutableBlockPos = blockpos.mutable();
+      IPatrolManager patrolManager = PatrolManagerHelper.getPatrolManagerCapability(pLevel);
+      Patrol patrol = patrolManager.createPatrol(faction);
       int i1 = 0;
       int j1 = (int)Math.ceil(pLevel.getCurrentDifficultyAt(mutableBlockPos).getEffectiveDifficulty()) + 1;
 
@@ -89,25 +91,29 @@ public class PatrolSpawner implements ISpecialSpawner {
          ++i1;
          mutableBlockPos.setY(pLevel.getHeightmapPos(Heightmap.Type.MOTION_BLOCKING_NO_LEAVES, mutableBlockPos).getY());
          if (k1 == 0) {
-            if (!spawnPatrolMember(pLevel, mutableBlockPos, random, true, faction)) {
+            if (!spawnPatrolMember(pLevel, mutableBlockPos, random, true, faction, patrol)) {
                break;
             }
          } else {
-            spawnPatrolMember(pLevel, mutableBlockPos, random, false, faction);
+            spawnPatrolMember(pLevel, mutableBlockPos, random, false, faction, patrol);
          }
 
          mutableBlockPos.setX(mutableBlockPos.getX() + random.nextInt(5) - random.nextInt(5));
          mutableBlockPos.setZ(mutableBlockPos.getZ() + random.nextInt(5) - random.nextInt(5));
       }
 
+      if (patrol.isEmpty()) {
+         patrolManager.removePatrol(patrol);
+      }
       return i1;
    }
 
-   private static boolean spawnPatrolMember(ServerWorld pLevel, BlockPos pPos, Random pRandom, boolean pLeader, Faction faction) {
+   private static boolean spawnPatrolMember(ServerWorld pLevel, BlockPos pPos, Random pRandom, boolean pLeader, Faction faction, Patrol patrol) {
       BlockState blockstate = pLevel.getBlockState(pPos);
-      List<Pair<FactionEntityType, Integer>> weightMap = faction.getWeightMap();
-      List<Pair<FactionEntityType, Integer>> filtered = weightMap.stream().filter(pair -> (pLeader && pair.getFirst().canBeBannerHolder()) || (!pLeader && pair.getFirst().getRank().equals(FactionEntityType.FactionRank.SOLDIER))).collect(Collectors.toList());
-      FactionEntityType factionEntityType = GeneralUtils.getRandomEntry(filtered, pRandom);
+      FactionEntityType factionEntityType = faction.getPatrolSampler(pLeader).sample(pRandom);
+      if (factionEntityType == null) {
+         return false;
+      }
       EntityType<? extends MobEntity> entityType = (EntityType<? extends MobEntity>) ENTITIES.getValue(factionEntityType.getEntityType());
       if (!WorldEntitySpawner.isValidEmptySpawnBlock(pLevel, pPos, blockstate, blockstate.getFluidState(), entityType)) {
          return false;
@@ -119,11 +125,11 @@ public class PatrolSpawner implements ISpecialSpawner {
          factionEntityType.getBoostConfig().getMandatoryBoosts().forEach(boost -> boost.apply(entity));
          if (entity != null) {
             IPatroller patrollerCap = PatrollerHelper.getPatrollerCapability(entity);
+            patrollerCap.joinPatrol(patrol);
             if (pLeader) {
-               patrollerCap.setPatrolLeader(true);
-               patrollerCap.findPatrolTarget();
+               patrol.setLeader(entity.getUUID());
+               patrol.findTarget(entity.blockPosition(), pRandom);
             }
-            patrollerCap.setPatrolling(true);
             return true;
          } else {
             return false;
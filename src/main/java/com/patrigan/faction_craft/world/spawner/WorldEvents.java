@@ -1,7 +1,7 @@
 package com.patrigan.faction_craft.world.spawner;
 
 
-import com.patrigan.faction_craft.config.FactionCraftConfig;
+import com.patrigan.faction_craft.config.ConfigSnapshot;
 import com.patrigan.faction_craft.mixin.ServerWorldAccessor;
 import net.minecraft.world.server.ServerWorld;
 import net.minecraft.world.spawner.ISpecialSpawner;
@@ -35,7 +35,7 @@ public class WorldEvents {
     }
 
     public static boolean filterVanillaPatrols(ISpecialSpawner iSpecialSpawner){
-        return !(iSpecialSpawner instanceof PatrolSpawner) || !FactionCraftConfig.DISABLE_VANILLA_PATROLS.get();
+        return !(iSpecialSpawner instanceof PatrolSpawner) || !ConfigSnapshot.get().disableVanillaPatrols;
 
     }
 